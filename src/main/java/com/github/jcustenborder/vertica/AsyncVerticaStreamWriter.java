@@ -0,0 +1,478 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writer that hands rows to a dedicated I/O thread through a bounded ring of preallocated row slots. Callers only
+ * block when the ring is full, so a slow stream does not stall the threads producing rows until the ring has filled
+ * up. Use {@link #tryWrite(Object[])} and {@link #awaitCapacity(long, TimeUnit)} to apply backpressure without
+ * blocking. Values are copied into the slot, but mutable values such as byte arrays are referenced and must not be
+ * modified after the row is written. Exceptions thrown by the I/O thread are rethrown by the next call.
+ */
+public final class AsyncVerticaStreamWriter implements VerticaStreamWriter {
+  private static final Logger log = LoggerFactory.getLogger(AsyncVerticaStreamWriter.class);
+  final VerticaStreamWriter output;
+  final List<VerticaColumnInfo> columns;
+  final Slot[] slots;
+  final ReentrantLock lock = new ReentrantLock();
+  final Condition notEmpty = lock.newCondition();
+  final Condition notFull = lock.newCondition();
+  final Deque<FlushRequest> flushRequests = new ArrayDeque<>();
+  final Thread thread;
+  final long flushIntervalNanos;
+  /**
+   * Sequence of the next slot to be written by the I/O thread.
+   */
+  long head;
+  /**
+   * Sequence of the next slot to be filled by a caller.
+   */
+  long tail;
+  boolean closed;
+  Throwable failure;
+
+  /**
+   * Preallocated entry in the ring.
+   */
+  static class Slot {
+    final Object[] values;
+    VerticaRow row;
+    ColumnBatch batch;
+    boolean commit;
+
+    Slot(int columnCount) {
+      this.values = new Object[columnCount];
+    }
+
+    void reset() {
+      if (this.commit) {
+        this.row.clear();
+        this.commit = false;
+      } else if (null != this.batch) {
+        this.batch = null;
+      } else {
+        Arrays.fill(this.values, null);
+      }
+    }
+  }
+
+  /**
+   * Future that is completed once the slot before the sequence has been written.
+   */
+  static class FlushRequest {
+    final long sequence;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    FlushRequest(long sequence) {
+      this.sequence = sequence;
+    }
+  }
+
+  AsyncVerticaStreamWriter(VerticaStreamWriterBuilder builder, VerticaStreamWriter output) {
+    Preconditions.checkState(builder.asyncQueueSize > 0, "asyncQueueSize must be greater than zero.");
+    this.output = output;
+    this.columns = output.columns();
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.flushInterval);
+    this.slots = new Slot[builder.asyncQueueSize];
+    for (int i = 0; i < this.slots.length; i++) {
+      this.slots[i] = new Slot(this.columns.size());
+    }
+    final ThreadFactory threadFactory = builder.asyncThreadFactory();
+    this.thread = threadFactory.newThread(this::run);
+    Preconditions.checkState(null != this.thread, "asyncThreadFactory did not return a thread.");
+    log.trace("ctor() - Starting I/O thread with {} slot(s).", this.slots.length);
+    this.thread.start();
+  }
+
+  int index(long sequence) {
+    return (int) (sequence % this.slots.length);
+  }
+
+  void run() {
+    try {
+      boolean dirty = false;
+      long lastFlush = System.nanoTime();
+      while (true) {
+        long from = 0;
+        long to = 0;
+        boolean flush = false;
+        this.lock.lock();
+        try {
+          while (true) {
+            if (this.head != this.tail) {
+              from = this.head;
+              to = this.tail;
+              break;
+            }
+            if (!this.flushRequests.isEmpty()) {
+              // Every row that was queued before the request has been written.
+              flush = true;
+              break;
+            }
+            if (this.closed) {
+              break;
+            }
+            if (dirty && this.flushIntervalNanos > 0) {
+              final long remaining = this.flushIntervalNanos - (System.nanoTime() - lastFlush);
+              if (remaining <= 0) {
+                flush = true;
+                break;
+              }
+              this.notEmpty.awaitNanos(remaining);
+            } else {
+              this.notEmpty.await();
+            }
+          }
+        } finally {
+          this.lock.unlock();
+        }
+        if (from == to && !flush) {
+          break;
+        }
+
+        if (from < to) {
+          log.trace("run() - Writing {} slot(s).", to - from);
+          for (long sequence = from; sequence < to; sequence++) {
+            final Slot slot = this.slots[index(sequence)];
+            if (slot.commit) {
+              this.output.commit(slot.row);
+            } else if (null != slot.batch) {
+              this.output.writeBatch(slot.batch);
+            } else {
+              this.output.write(slot.values);
+            }
+            slot.reset();
+          }
+          dirty = true;
+
+          this.lock.lock();
+          try {
+            this.head = to;
+            flush = !this.flushRequests.isEmpty() && this.flushRequests.peek().sequence <= to;
+            this.notFull.signalAll();
+          } finally {
+            this.lock.unlock();
+          }
+        }
+
+        if (flush) {
+          log.trace("run() - Flushing.");
+          this.output.flush();
+          dirty = false;
+          lastFlush = System.nanoTime();
+          this.lock.lock();
+          try {
+            while (!this.flushRequests.isEmpty() && this.flushRequests.peek().sequence <= this.head) {
+              this.flushRequests.poll().future.complete(null);
+            }
+            // Wake up writeBatch() callers that are waiting on the flush.
+            this.notFull.signalAll();
+          } finally {
+            this.lock.unlock();
+          }
+        }
+      }
+    } catch (Throwable t) {
+      log.error("run() - Exception thrown while writing to the stream.", t);
+      this.lock.lock();
+      try {
+        this.failure = t;
+        while (!this.flushRequests.isEmpty()) {
+          this.flushRequests.poll().future.completeExceptionally(t);
+        }
+        this.notFull.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Method is used to check the state of the writer. Must be called while holding the lock.
+   *
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  void checkOpen() throws IOException {
+    if (null != this.failure) {
+      throw new IOException("Exception thrown by the I/O thread.", this.failure);
+    }
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+  }
+
+  boolean hasCapacity() {
+    return this.tail - this.head < this.slots.length;
+  }
+
+  /**
+   * Method is used to claim the next slot. Must be called while holding the lock.
+   *
+   * @param block true to wait for a slot to be available.
+   * @return slot or null if block is false and the ring is full.
+   * @throws IOException Exception thrown if the I/O thread failed or the wait was interrupted.
+   */
+  Slot claim(boolean block) throws IOException {
+    checkOpen();
+    while (!hasCapacity()) {
+      if (!block) {
+        return null;
+      }
+      try {
+        this.notFull.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for capacity.");
+      }
+      checkOpen();
+    }
+    return this.slots[index(this.tail)];
+  }
+
+  /**
+   * Method is used to publish the slot claimed by {@link #claim(boolean)}. Must be called while holding the lock.
+   *
+   * @return sequence of the slot.
+   */
+  long publish() {
+    final long sequence = this.tail;
+    this.tail++;
+    this.notEmpty.signal();
+    return sequence;
+  }
+
+  boolean write(Object[] row, boolean block) throws IOException {
+    Preconditions.checkNotNull(row, "row cannot be null.");
+    Preconditions.checkState(this.columns.size() == row.length, "The length of the row array must be equal to the number of columns");
+    this.lock.lock();
+    try {
+      final Slot slot = claim(block);
+      if (null == slot) {
+        return false;
+      }
+      System.arraycopy(row, 0, slot.values, 0, row.length);
+      publish();
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void write(Object[] row) throws IOException {
+    write(row, true);
+  }
+
+  /**
+   * Method is used to write a row to the stream without waiting for capacity.
+   *
+   * @param row Array containing the objects for a row.
+   * @return true if the row was queued, false if the queue is full.
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  public boolean tryWrite(Object[] row) throws IOException {
+    return write(row, false);
+  }
+
+  /**
+   * Method is used to wait until there is capacity to write a row.
+   *
+   * @param timeout maximum time to wait.
+   * @param unit    unit of the timeout.
+   * @return true if a row can be written, false if the timeout elapsed.
+   * @throws IOException          Exception thrown if the I/O thread failed.
+   * @throws InterruptedException Exception thrown if the thread is interrupted while waiting.
+   */
+  public boolean awaitCapacity(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    this.lock.lock();
+    try {
+      checkOpen();
+      while (!hasCapacity()) {
+        if (nanos <= 0L) {
+          return false;
+        }
+        nanos = this.notFull.awaitNanos(nanos);
+        checkOpen();
+      }
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Method is used to request a future that is completed once every row queued before this call has been written
+   * to the underlying writer and the writer has been flushed. The future is completed exceptionally if the I/O
+   * thread fails.
+   *
+   * @return future that is completed once the rows are written.
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  public CompletableFuture<Void> flushAsync() throws IOException {
+    this.lock.lock();
+    try {
+      checkOpen();
+      final FlushRequest request = new FlushRequest(this.tail);
+      this.flushRequests.add(request);
+      this.notEmpty.signal();
+      return request.future;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Method is used to wait until every row queued before this call has been written and the underlying writer has
+   * been flushed.
+   *
+   * @throws IOException Exception thrown if the I/O thread failed or the wait was interrupted.
+   */
+  @Override
+  public void flush() throws IOException {
+    final CompletableFuture<Void> future = flushAsync();
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the flush.");
+    } catch (ExecutionException e) {
+      throw new IOException("Exception thrown by the I/O thread.", e.getCause());
+    }
+  }
+
+  /**
+   * Method is used to wait until the slot with the sequence has been written. Must be called while holding the lock.
+   *
+   * @param sequence sequence of the slot.
+   * @throws IOException Exception thrown if the I/O thread failed or the wait was interrupted.
+   */
+  void awaitWritten(long sequence) throws IOException {
+    while (this.head <= sequence) {
+      checkOpen();
+      try {
+        this.notFull.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the batch to be written.");
+      }
+    }
+  }
+
+  @Override
+  public VerticaRow newRow() {
+    return this.output.newRow();
+  }
+
+  /**
+   * Method is used to write a row to the stream. The values of the row are copied so the row can be modified once
+   * this method returns.
+   *
+   * @param row Row created by {@link #newRow()}.
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  @Override
+  public void commit(VerticaRow row) throws IOException {
+    VerticaRow.checkRow(row, this.columns);
+    this.lock.lock();
+    try {
+      final Slot slot = claim(true);
+      if (null == slot.row) {
+        slot.row = new VerticaRow(this.columns);
+      }
+      row.copyTo(slot.row);
+      slot.commit = true;
+      publish();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Method is used to write all of the rows in a batch to the stream. The batch is queued in order with the other
+   * rows and this method waits until it has been written because the batch can be reused once it returns.
+   *
+   * @param batch Batch containing the values for each column.
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  @Override
+  public void writeBatch(ColumnBatch batch) throws IOException {
+    Preconditions.checkNotNull(batch, "batch cannot be null.");
+    batch.validate(this.columns);
+    this.lock.lock();
+    try {
+      final Slot slot = claim(true);
+      slot.batch = batch;
+      awaitWritten(publish());
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public List<VerticaColumnInfo> columns() {
+    return this.columns;
+  }
+
+  /**
+   * Method is used to write the queued rows and close the underlying writer.
+   *
+   * @throws IOException Exception thrown if the I/O thread failed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.lock.lock();
+    try {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.notEmpty.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the I/O thread.");
+    }
+
+    try {
+      if (null != this.failure) {
+        throw new IOException("Exception thrown by the I/O thread.", this.failure);
+      }
+    } finally {
+      this.output.close();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Strategy used by writers to obtain the buffers rows are encoded into. Buffers are released when the writer is
+ * closed.
+ */
+public interface BufferAllocator {
+  /**
+   * Allocator that creates a new heap buffer for every request and ignores released buffers.
+   */
+  BufferAllocator HEAP = new BufferAllocator() {
+    @Override
+    public ByteBuffer allocate(int capacity) {
+      return ByteBuffer.allocate(capacity);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+    }
+  };
+
+  /**
+   * Method is used to allocate a buffer.
+   *
+   * @param capacity minimum capacity of the buffer.
+   * @return cleared buffer with a capacity of at least the requested capacity.
+   */
+  ByteBuffer allocate(int capacity);
+
+  /**
+   * Method is used to return a buffer to the allocator. The buffer must not be used after it is released.
+   *
+   * @param buffer buffer returned by {@link #allocate(int)}.
+   */
+  void release(ByteBuffer buffer);
+}
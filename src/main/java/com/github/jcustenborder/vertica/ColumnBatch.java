@@ -0,0 +1,456 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class is used to write data that is already stored by column with
+ * {@link VerticaStreamWriter#writeBatch(ColumnBatch)}. Each column is backed by a primitive array with at least
+ * {@link #rowCount()} elements. The arrays are referenced, not copied, so a batch can be reused by replacing the
+ * arrays or their contents between writes.
+ * <p>
+ * Primitive arrays are mapped to columns as follows.
+ * <ul>
+ * <li>long[] - INTEGER, INTERVAL (microseconds), TIMESTAMP and TIMESTAMPTZ (microseconds since the unix epoch),
+ * TIME (microseconds since midnight).</li>
+ * <li>int[] - INTEGER, DATE (days since the unix epoch).</li>
+ * <li>double[] - FLOAT.</li>
+ * <li>boolean[] - BOOLEAN.</li>
+ * <li>offsets and data - CHAR, VARCHAR (UTF-8), BINARY and VARBINARY. The value for row i is stored in data
+ * starting at offsets[i] and ending before offsets[i + 1].</li>
+ * <li>Object[] - Any column. Values are encoded the same way as {@link VerticaStreamWriter#write(Object[])}.</li>
+ * </ul>
+ * Columns declared with a {@link TemporalInput} accept long[] and int[] values in the unit of the input instead.
+ * Nulls are marked with a bitmap per column where bit (i % 8) of byte (i / 8) is set if row i is null.
+ */
+public final class ColumnBatch {
+  static final byte KIND_NONE = 0;
+  static final byte KIND_LONGS = 1;
+  static final byte KIND_INTS = 2;
+  static final byte KIND_DOUBLES = 3;
+  static final byte KIND_BOOLEANS = 4;
+  static final byte KIND_BYTES = 5;
+  static final byte KIND_OBJECTS = 6;
+
+  final byte[] kinds;
+  final long[][] longs;
+  final int[][] ints;
+  final double[][] doubles;
+  final boolean[][] booleans;
+  final int[][] offsets;
+  final byte[][] data;
+  final Object[][] objects;
+  final byte[][] nulls;
+  int rowCount;
+
+  /**
+   * Creates a batch for the supplied number of columns.
+   *
+   * @param columnCount number of columns in the batch.
+   */
+  public ColumnBatch(int columnCount) {
+    Preconditions.checkState(columnCount > 0, "columnCount must be greater than zero.");
+    this.kinds = new byte[columnCount];
+    this.longs = new long[columnCount][];
+    this.ints = new int[columnCount][];
+    this.doubles = new double[columnCount][];
+    this.booleans = new boolean[columnCount][];
+    this.offsets = new int[columnCount][];
+    this.data = new byte[columnCount][];
+    this.objects = new Object[columnCount][];
+    this.nulls = new byte[columnCount][];
+  }
+
+  /**
+   * The number of columns in the batch.
+   *
+   * @return The number of columns in the batch.
+   */
+  public int columnCount() {
+    return this.kinds.length;
+  }
+
+  /**
+   * The number of rows in the batch.
+   *
+   * @return The number of rows in the batch.
+   */
+  public int rowCount() {
+    return this.rowCount;
+  }
+
+  /**
+   * Sets the number of rows in the batch.
+   *
+   * @param rowCount number of rows in the batch.
+   * @return this batch.
+   */
+  public ColumnBatch rowCount(int rowCount) {
+    Preconditions.checkState(rowCount >= 0, "rowCount must be greater than or equal to zero.");
+    this.rowCount = rowCount;
+    return this;
+  }
+
+  private void set(int column, byte kind) {
+    this.kinds[column] = kind;
+    this.longs[column] = null;
+    this.ints[column] = null;
+    this.doubles[column] = null;
+    this.booleans[column] = null;
+    this.offsets[column] = null;
+    this.data[column] = null;
+    this.objects[column] = null;
+  }
+
+  /**
+   * Sets the values of a column to a long array.
+   *
+   * @param column index of the column.
+   * @param values values for the column.
+   * @return this batch.
+   */
+  public ColumnBatch longs(int column, long[] values) {
+    Preconditions.checkNotNull(values, "values cannot be null.");
+    set(column, KIND_LONGS);
+    this.longs[column] = values;
+    return this;
+  }
+
+  /**
+   * Sets the values of a column to an int array.
+   *
+   * @param column index of the column.
+   * @param values values for the column.
+   * @return this batch.
+   */
+  public ColumnBatch ints(int column, int[] values) {
+    Preconditions.checkNotNull(values, "values cannot be null.");
+    set(column, KIND_INTS);
+    this.ints[column] = values;
+    return this;
+  }
+
+  /**
+   * Sets the values of a column to a double array.
+   *
+   * @param column index of the column.
+   * @param values values for the column.
+   * @return this batch.
+   */
+  public ColumnBatch doubles(int column, double[] values) {
+    Preconditions.checkNotNull(values, "values cannot be null.");
+    set(column, KIND_DOUBLES);
+    this.doubles[column] = values;
+    return this;
+  }
+
+  /**
+   * Sets the values of a column to a boolean array.
+   *
+   * @param column index of the column.
+   * @param values values for the column.
+   * @return this batch.
+   */
+  public ColumnBatch booleans(int column, boolean[] values) {
+    Preconditions.checkNotNull(values, "values cannot be null.");
+    set(column, KIND_BOOLEANS);
+    this.booleans[column] = values;
+    return this;
+  }
+
+  /**
+   * Sets the values of a column to ranges of a byte array.
+   *
+   * @param column  index of the column.
+   * @param offsets offsets of each value in data. Must contain at least {@link #rowCount()} + 1 elements.
+   * @param data    array containing the values.
+   * @return this batch.
+   */
+  public ColumnBatch bytes(int column, int[] offsets, byte[] data) {
+    Preconditions.checkNotNull(offsets, "offsets cannot be null.");
+    Preconditions.checkNotNull(data, "data cannot be null.");
+    set(column, KIND_BYTES);
+    this.offsets[column] = offsets;
+    this.data[column] = data;
+    return this;
+  }
+
+  /**
+   * Sets the values of a column to an object array.
+   *
+   * @param column index of the column.
+   * @param values values for the column.
+   * @return this batch.
+   */
+  public ColumnBatch objects(int column, Object[] values) {
+    Preconditions.checkNotNull(values, "values cannot be null.");
+    set(column, KIND_OBJECTS);
+    this.objects[column] = values;
+    return this;
+  }
+
+  /**
+   * Sets the null bitmap of a column.
+   *
+   * @param column index of the column.
+   * @param bitmap bitmap where bit (i % 8) of byte (i / 8) is set if row i is null. null if the column does not
+   *               contain nulls.
+   * @return this batch.
+   */
+  public ColumnBatch nulls(int column, byte[] bitmap) {
+    this.nulls[column] = bitmap;
+    return this;
+  }
+
+  /**
+   * Method is used to remove all of the columns from the batch.
+   *
+   * @return this batch.
+   */
+  public ColumnBatch clear() {
+    for (int i = 0; i < this.kinds.length; i++) {
+      set(i, KIND_NONE);
+    }
+    Arrays.fill(this.nulls, null);
+    this.rowCount = 0;
+    return this;
+  }
+
+  private static Object values(ColumnBatch batch, int column) {
+    switch (batch.kinds[column]) {
+      case KIND_LONGS:
+        return batch.longs[column];
+      case KIND_INTS:
+        return batch.ints[column];
+      case KIND_DOUBLES:
+        return batch.doubles[column];
+      case KIND_BOOLEANS:
+        return batch.booleans[column];
+      case KIND_OBJECTS:
+        return batch.objects[column];
+      default:
+        return null;
+    }
+  }
+
+  private static boolean accepts(VerticaColumnInfo columnInfo, byte kind) {
+    final VerticaColumnType type = columnInfo.type;
+    if (null != columnInfo.temporalInput && (KIND_LONGS == kind || KIND_INTS == kind)) {
+      return columnInfo.temporalInput.supports(type);
+    }
+    switch (kind) {
+      case KIND_LONGS:
+        return VerticaColumnType.INTEGER == type ||
+            VerticaColumnType.INTERVAL == type ||
+            VerticaColumnType.TIMESTAMP == type ||
+            VerticaColumnType.TIMESTAMPTZ == type ||
+            VerticaColumnType.TIME == type;
+      case KIND_INTS:
+        return VerticaColumnType.INTEGER == type || VerticaColumnType.DATE == type;
+      case KIND_DOUBLES:
+        return VerticaColumnType.FLOAT == type;
+      case KIND_BOOLEANS:
+        return VerticaColumnType.BOOLEAN == type;
+      case KIND_BYTES:
+        return VerticaColumnType.CHAR == type ||
+            VerticaColumnType.VARCHAR == type ||
+            VerticaColumnType.BINARY == type ||
+            VerticaColumnType.VARBINARY == type;
+      case KIND_OBJECTS:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Method is used to validate the batch against the columns of the writer before any rows are encoded.
+   *
+   * @param columns columns of the writer.
+   */
+  void validate(List<VerticaColumnInfo> columns) {
+    Preconditions.checkState(
+        columns.size() == this.kinds.length,
+        "The number of columns in the batch must be equal to the number of columns"
+    );
+    for (int i = 0; i < this.kinds.length; i++) {
+      final VerticaColumnInfo columnInfo = columns.get(i);
+      if (!accepts(columnInfo, this.kinds[i])) {
+        throw new IllegalStateException(
+            String.format(
+                "Column '%s' at index %s of type %s is not set or does not support the values in the batch.",
+                columnInfo.name,
+                i,
+                columnInfo.type
+            )
+        );
+      }
+      if (KIND_BYTES == this.kinds[i]) {
+        validateOffsets(columnInfo, this.offsets[i], this.data[i]);
+      } else {
+        Preconditions.checkState(
+            Array.getLength(values(this, i)) >= this.rowCount,
+            "values for column '%s' must contain at least %s elements.",
+            columnInfo.name,
+            this.rowCount
+        );
+      }
+      if (null != this.nulls[i]) {
+        Preconditions.checkState(
+            this.nulls[i].length * 8 >= this.rowCount,
+            "null bitmap for column '%s' must contain at least %s bits.",
+            columnInfo.name,
+            this.rowCount
+        );
+      }
+    }
+  }
+
+  /**
+   * Method is used to check that the offsets of a column describe ranges of the data array. This is checked before
+   * any rows are encoded so a bad offset does not leave part of the batch in the stream.
+   *
+   * @param columnInfo column the offsets are for.
+   * @param offsets    offsets of each value in data.
+   * @param data       array containing the values.
+   */
+  private void validateOffsets(VerticaColumnInfo columnInfo, int[] offsets, byte[] data) {
+    Preconditions.checkState(
+        offsets.length > this.rowCount,
+        "offsets for column '%s' must contain at least %s elements.",
+        columnInfo.name,
+        this.rowCount + 1
+    );
+    int previous = 0;
+    for (int row = 0; row <= this.rowCount; row++) {
+      final int offset = offsets[row];
+      if (offset < previous) {
+        throw new IllegalStateException(
+            String.format(
+                "offsets for column '%s' must not be negative or decrease. offsets[%s] = %s.",
+                columnInfo.name,
+                row,
+                offset
+            )
+        );
+      }
+      previous = offset;
+    }
+    Preconditions.checkState(
+        previous <= data.length,
+        "offsets for column '%s' end at %s but data only contains %s byte(s).",
+        columnInfo.name,
+        previous,
+        data.length
+    );
+  }
+
+  /**
+   * Method is used to encode the data for a row of the batch. The row header must already be reserved in the
+   * buffer. Rows are encoded one at a time because the native format stores the values of a row together behind
+   * its length and null bitmap. The kind of each column does not change between rows so the switch in
+   * {@link #encodeColumn(ByteBuffer, List, int, int)} is predicted after the first row.
+   *
+   * @param buffer  buffer to write to.
+   * @param columns columns of the writer.
+   * @param row     index of the row in the batch.
+   */
+  void encode(ByteBuffer buffer, List<VerticaColumnInfo> columns, int row) {
+    for (int i = 0; i < this.kinds.length; i++) {
+      encodeColumn(buffer, columns, row, i);
+    }
+  }
+
+  /**
+   * Method is used to encode a single column of a row in the batch.
+   *
+   * @param buffer  buffer to write to.
+   * @param columns columns of the writer.
+   * @param row     index of the row in the batch.
+   * @param i       index of the column.
+   */
+  void encodeColumn(ByteBuffer buffer, List<VerticaColumnInfo> columns, int row, int i) {
+    final byte[] nullBitmap = this.nulls[i];
+    if (null != nullBitmap && 0 != (nullBitmap[row >>> 3] & (1 << (row & 7)))) {
+      VerticaNativeStreamWriter.nullMarker(buffer, i);
+      return;
+    }
+
+    final VerticaColumnInfo columnInfo = columns.get(i);
+    switch (this.kinds[i]) {
+      case KIND_LONGS:
+        encodeLong(buffer, columnInfo, this.longs[i][row]);
+        break;
+      case KIND_INTS:
+        if (null != columnInfo.temporalInput) {
+          columnInfo.encodeTemporal(buffer, this.ints[i][row]);
+        } else if (VerticaColumnType.DATE == columnInfo.type) {
+          columnInfo.encodeEpochDay(buffer, this.ints[i][row]);
+        } else {
+          columnInfo.encodeLong(buffer, this.ints[i][row]);
+        }
+        break;
+      case KIND_DOUBLES:
+        columnInfo.encodeDouble(buffer, this.doubles[i][row]);
+        break;
+      case KIND_BOOLEANS:
+        columnInfo.encodeBoolean(buffer, this.booleans[i][row]);
+        break;
+      case KIND_BYTES:
+        final int[] valueOffsets = this.offsets[i];
+        final int offset = valueOffsets[row];
+        columnInfo.encodeBytes(buffer, this.data[i], offset, valueOffsets[row + 1] - offset);
+        break;
+      case KIND_OBJECTS:
+        final Object value = this.objects[i][row];
+        if (null == value) {
+          VerticaNativeStreamWriter.nullMarker(buffer, i);
+        } else {
+          columnInfo.encode(buffer, value);
+        }
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Column '%s' at index %s is not set.", columnInfo.name, i)
+        );
+    }
+  }
+
+  private static void encodeLong(ByteBuffer buffer, VerticaColumnInfo columnInfo, long value) {
+    if (null != columnInfo.temporalInput) {
+      columnInfo.encodeTemporal(buffer, value);
+      return;
+    }
+    switch (columnInfo.type) {
+      case TIMESTAMP:
+      case TIMESTAMPTZ:
+        columnInfo.encodeEpochMicros(buffer, value);
+        break;
+      case TIME:
+        columnInfo.encodeMicrosOfDay(buffer, value);
+        break;
+      default:
+        columnInfo.encodeLong(buffer, value);
+        break;
+    }
+  }
+}
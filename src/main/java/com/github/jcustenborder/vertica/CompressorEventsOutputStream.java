@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.io.CountingOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream placed in front of a compressor that runs on the writing thread to emit a compressor block event for each
+ * write, flush and close. The compressed bytes of an event are the bytes the compressor wrote to the counting stream
+ * below it during the call. {@link ParallelCompressorOutputStream} emits its own events.
+ */
+class CompressorEventsOutputStream extends OutputStream {
+  final OutputStream compressor;
+  final CountingOutputStream compressed;
+  final WriterEvents events;
+
+  CompressorEventsOutputStream(OutputStream compressor, CountingOutputStream compressed, WriterEvents events) {
+    this.compressor = compressor;
+    this.compressed = compressed;
+    this.events = events;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    final Object event = this.events.beginCompress();
+    final long start = this.compressed.getCount();
+    this.compressor.write(b);
+    this.events.endCompress(event, 1, this.compressed.getCount() - start);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    final Object event = this.events.beginCompress();
+    final long start = this.compressed.getCount();
+    this.compressor.write(b, off, len);
+    this.events.endCompress(event, len, this.compressed.getCount() - start);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    final Object event = this.events.beginCompress();
+    final long start = this.compressed.getCount();
+    this.compressor.flush();
+    this.events.endCompress(event, 0, this.compressed.getCount() - start);
+  }
+
+  @Override
+  public void close() throws IOException {
+    final Object event = this.events.beginCompress();
+    final long start = this.compressed.getCount();
+    this.compressor.close();
+    this.events.endCompress(event, 0, this.compressed.getCount() - start);
+  }
+}
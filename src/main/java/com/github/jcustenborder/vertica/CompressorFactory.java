@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Interface is used to wrap a stream with a compression layer.
+ */
+interface CompressorFactory {
+  /**
+   * Method is used to wrap a stream with a compression layer.
+   *
+   * @param outputStream stream to write the compressed data to.
+   * @return stream that compresses the data written to it.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  OutputStream create(OutputStream outputStream) throws IOException;
+}
@@ -31,4 +31,5 @@ public class Constants {
   public static final byte ZERO = FALSE;
   public static final long THEIR_EPOCH = 946684800000L;
   public static final long THEIR_EPOCH_MICRO = THEIR_EPOCH * 1000L;
+  public static final long THEIR_EPOCH_DAY = THEIR_EPOCH / (1000L * 60 * 60 * 24);
 }
@@ -0,0 +1,153 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of encoded values for a VARCHAR or CHAR column. Values are keyed by equality and map to the bytes
+ * that were written for them, including the length prefix of VARCHAR columns or the padding of CHAR columns, so a
+ * hit is written with a single {@link ByteBuffer#put(byte[])}. The least recently used value is evicted once the
+ * cache is full. Instances are not thread safe, copies share the hit and miss counters of the original.
+ * <p>
+ * Lookups are counted as pending until the row they belong to is written. A row that is encoded again after the row
+ * buffer grows would otherwise be counted twice, so {@link RowBuffer} discards the pending counts when a row is
+ * started and commits them once it has been written.
+ */
+class EncodedValueCache {
+  private static final Logger log = LoggerFactory.getLogger(EncodedValueCache.class);
+  /**
+   * Strings longer than this are not cached.
+   */
+  static final int MAX_VALUE_LENGTH = 256;
+
+  final int maxEntries;
+  final LongAdder hits;
+  final LongAdder misses;
+  final Map<Object, byte[]> entries;
+  long pendingHits;
+  long pendingMisses;
+
+  EncodedValueCache(int maxEntries) {
+    this(maxEntries, new LongAdder(), new LongAdder());
+  }
+
+  private EncodedValueCache(int maxEntries, LongAdder hits, LongAdder misses) {
+    Preconditions.checkState(maxEntries > 0, "maxEntries must be greater than zero.");
+    this.maxEntries = maxEntries;
+    this.hits = hits;
+    this.misses = misses;
+    this.entries = new LinkedHashMap<Object, byte[]>(16, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, byte[]> eldest) {
+        return size() > EncodedValueCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Method is used to create an empty cache that shares the counters of this cache.
+   *
+   * @return empty cache with the same number of entries.
+   */
+  EncodedValueCache copy() {
+    return new EncodedValueCache(this.maxEntries, this.hits, this.misses);
+  }
+
+  /**
+   * Method is used to determine if a value can be cached.
+   *
+   * @param value value to check.
+   * @return true if the value is an Enum or a String that is not longer than {@link #MAX_VALUE_LENGTH}.
+   */
+  static boolean cacheable(Object value) {
+    if (value instanceof String) {
+      return ((String) value).length() <= MAX_VALUE_LENGTH;
+    }
+    return value instanceof Enum;
+  }
+
+  /**
+   * Method is used to write the cached encoding of a value.
+   *
+   * @param buffer buffer to write to.
+   * @param value  value to write.
+   * @return true if the value was cached and written to the buffer.
+   */
+  boolean write(ByteBuffer buffer, Object value) {
+    final byte[] encoded = this.entries.get(value);
+    if (null == encoded) {
+      this.pendingMisses++;
+      return false;
+    }
+    this.pendingHits++;
+    buffer.put(encoded);
+    return true;
+  }
+
+  /**
+   * Method is used to cache the bytes that were written for a value.
+   *
+   * @param value  value that was written.
+   * @param buffer buffer the value was written to.
+   * @param start  position of the buffer before the value was written.
+   */
+  void add(Object value, ByteBuffer buffer, int start) {
+    final byte[] encoded = new byte[buffer.position() - start];
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = buffer.get(start + i);
+    }
+    log.trace("add() - Caching {} byte(s) for '{}'.", encoded.length, value);
+    this.entries.put(value, encoded);
+  }
+
+  /**
+   * Method is called once the row has been written to add the pending lookups to the counters.
+   */
+  void commit() {
+    if (0 != this.pendingHits) {
+      this.hits.add(this.pendingHits);
+      this.pendingHits = 0;
+    }
+    if (0 != this.pendingMisses) {
+      this.misses.add(this.pendingMisses);
+      this.pendingMisses = 0;
+    }
+  }
+
+  /**
+   * Method is called when a row is started to drop the lookups of a row that was not written.
+   */
+  void discard() {
+    this.pendingHits = 0;
+    this.pendingMisses = 0;
+  }
+
+  long hits() {
+    return this.hits.sum() + this.pendingHits;
+  }
+
+  long misses() {
+    return this.misses.sum() + this.pendingMisses;
+  }
+}
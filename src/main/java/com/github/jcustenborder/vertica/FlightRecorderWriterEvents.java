@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder implementation of {@link WriterEvents}. Every event is disabled by default and has to be
+ * enabled by the recording, for example with
+ * {@code -XX:StartFlightRecording:com.github.jcustenborder.vertica.Flush#enabled=true}. Each begin method checks the
+ * {@link EventType} of the event before the event is created, so nothing is allocated while an event is disabled.
+ */
+class FlightRecorderWriterEvents extends WriterEvents {
+  final String schema;
+  final String table;
+
+  FlightRecorderWriterEvents(String schema, String table) {
+    this.schema = schema;
+    this.table = table;
+  }
+
+  @Category("Vertica")
+  @Enabled(false)
+  @StackTrace(false)
+  abstract static class WriterEvent extends Event {
+    @Label("Schema")
+    String schema;
+    @Label("Table")
+    String table;
+  }
+
+  @Name("com.github.jcustenborder.vertica.RowBlockEncoded")
+  @Label("Row Block Encoded")
+  @Description("A row, a batch or a chunk of rows was encoded.")
+  static class RowBlockEncodedEvent extends WriterEvent {
+    @Label("Rows")
+    long rows;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("com.github.jcustenborder.vertica.CompressorBlock")
+  @Label("Compressor Block")
+  @Description("A block was compressed.")
+  static class CompressorBlockEvent extends WriterEvent {
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+    @Label("Compressed Bytes")
+    @DataAmount
+    long compressedBytes;
+  }
+
+  @Name("com.github.jcustenborder.vertica.Flush")
+  @Label("Flush")
+  @Description("The writer was flushed.")
+  static class FlushEvent extends WriterEvent {
+    @Label("Rows")
+    long rows;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("com.github.jcustenborder.vertica.WriteBlocked")
+  @Label("Write Blocked")
+  @Description("A write to the stream took longer than the threshold.")
+  @Threshold("20 ms")
+  static class WriteBlockedEvent extends WriterEvent {
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+
+  static final EventType ROW_BLOCK_ENCODED = EventType.getEventType(RowBlockEncodedEvent.class);
+  static final EventType COMPRESSOR_BLOCK = EventType.getEventType(CompressorBlockEvent.class);
+  static final EventType FLUSH = EventType.getEventType(FlushEvent.class);
+  static final EventType WRITE_BLOCKED = EventType.getEventType(WriteBlockedEvent.class);
+
+  <T extends WriterEvent> T begin(T event) {
+    event.begin();
+    return event;
+  }
+
+  boolean end(WriterEvent event) {
+    event.end();
+    if (!event.shouldCommit()) {
+      return false;
+    }
+    event.schema = this.schema;
+    event.table = this.table;
+    return true;
+  }
+
+  @Override
+  Object beginEncode() {
+    return ROW_BLOCK_ENCODED.isEnabled() ? begin(new RowBlockEncodedEvent()) : null;
+  }
+
+  @Override
+  void endEncode(Object event, long rows, long bytes) {
+    if (null == event) {
+      return;
+    }
+    final RowBlockEncodedEvent e = (RowBlockEncodedEvent) event;
+    if (end(e)) {
+      e.rows = rows;
+      e.bytes = bytes;
+      e.commit();
+    }
+  }
+
+  @Override
+  Object beginCompress() {
+    return COMPRESSOR_BLOCK.isEnabled() ? begin(new CompressorBlockEvent()) : null;
+  }
+
+  @Override
+  void endCompress(Object event, long bytes, long compressedBytes) {
+    if (null == event) {
+      return;
+    }
+    final CompressorBlockEvent e = (CompressorBlockEvent) event;
+    if (end(e)) {
+      e.bytes = bytes;
+      e.compressedBytes = compressedBytes;
+      e.commit();
+    }
+  }
+
+  @Override
+  Object beginFlush() {
+    return FLUSH.isEnabled() ? begin(new FlushEvent()) : null;
+  }
+
+  @Override
+  void endFlush(Object event, long rows, long bytes) {
+    if (null == event) {
+      return;
+    }
+    final FlushEvent e = (FlushEvent) event;
+    if (end(e)) {
+      e.rows = rows;
+      e.bytes = bytes;
+      e.commit();
+    }
+  }
+
+  @Override
+  Object beginWrite() {
+    return WRITE_BLOCKED.isEnabled() ? begin(new WriteBlockedEvent()) : null;
+  }
+
+  @Override
+  void endWrite(Object event, long bytes) {
+    if (null == event) {
+      return;
+    }
+    final WriteBlockedEvent e = (WriteBlockedEvent) event;
+    if (end(e)) {
+      e.bytes = bytes;
+      e.commit();
+    }
+  }
+}
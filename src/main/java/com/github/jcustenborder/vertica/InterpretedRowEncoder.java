@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Row encoder that loops over the columns and encodes each value with {@link VerticaColumnInfo#encode(ByteBuffer, Object)}.
+ */
+class InterpretedRowEncoder implements RowEncoder {
+  private static final Logger log = LoggerFactory.getLogger(InterpretedRowEncoder.class);
+  final List<VerticaColumnInfo> columns;
+
+  InterpretedRowEncoder(List<VerticaColumnInfo> columns) {
+    this.columns = columns;
+  }
+
+  @Override
+  public void encode(ByteBuffer buffer, Object[] row) {
+    for (int i = 0; i < row.length; i++) {
+      final Object value = row[i];
+      if (null == value) {
+        VerticaNativeStreamWriter.nullMarker(buffer, i);
+        continue;
+      }
+      VerticaColumnInfo columnInfo = this.columns.get(i);
+      log.trace("encode() - Writing value for {} - {}", i, columnInfo.name);
+      columnInfo.encode(buffer, value);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stream that writes to a file through memory mapped extents. The file is grown one extent at a time and truncated
+ * to the number of bytes written when the stream is closed. The stream is also a {@link WritableByteChannel} so
+ * buffers can be copied to the mapped extent without an intermediate array.
+ * <p>
+ * Mapping an extent grows the file past the data that has been written, so the file is always truncated when the
+ * stream is closed. The JDK offers no way to unmap a buffer, so the extents stay mapped until they are garbage
+ * collected. Truncating a file with a live mapping fails on Windows, so this stream should only be used on platforms
+ * that allow it.
+ */
+class MappedFileOutputStream extends OutputStream implements WritableByteChannel {
+  private static final Logger log = LoggerFactory.getLogger(MappedFileOutputStream.class);
+  final Path path;
+  final FileChannel channel;
+  final int extentSize;
+  final boolean sync;
+  MappedByteBuffer extent;
+  long size;
+  boolean closed;
+
+  /**
+   * Creates a stream for a file. Existing files are truncated.
+   *
+   * @param path       file to write to.
+   * @param extentSize number of bytes mapped at a time.
+   * @param sync       true to force each extent to disk once it is full and the file when it is closed.
+   * @throws IOException Exception thrown if the file cannot be opened.
+   */
+  MappedFileOutputStream(Path path, int extentSize, boolean sync) throws IOException {
+    Preconditions.checkNotNull(path, "path cannot be null.");
+    Preconditions.checkState(extentSize > 0, "extentSize must be greater than zero.");
+    this.path = path;
+    this.extentSize = extentSize;
+    this.sync = sync;
+    this.channel = FileChannel.open(
+        path,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+    );
+  }
+
+  /**
+   * Method is used to get an extent with remaining capacity, mapping the next extent if the current one is full.
+   *
+   * @return extent with remaining capacity.
+   * @throws IOException Exception thrown if the extent cannot be mapped.
+   */
+  MappedByteBuffer extent() throws IOException {
+    if (this.closed) {
+      throw new ClosedChannelException();
+    }
+    if (null == this.extent || !this.extent.hasRemaining()) {
+      if (null != this.extent && this.sync) {
+        log.trace("extent() - Forcing extent ending at {} to disk.", this.size);
+        this.extent.force();
+      }
+      log.trace("extent() - Mapping {} byte(s) of '{}' at {}.", this.extentSize, this.path, this.size);
+      this.extent = this.channel.map(FileChannel.MapMode.READ_WRITE, this.size, this.extentSize);
+    }
+    return this.extent;
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    int written = 0;
+    while (src.hasRemaining()) {
+      final MappedByteBuffer extent = extent();
+      final int length = Math.min(src.remaining(), extent.remaining());
+      if (length == src.remaining()) {
+        extent.put(src);
+      } else {
+        final ByteBuffer slice = src.duplicate();
+        slice.limit(slice.position() + length);
+        extent.put(slice);
+        src.position(src.position() + length);
+      }
+      this.size += length;
+      written += length;
+    }
+    return written;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      final MappedByteBuffer extent = extent();
+      final int length = Math.min(len, extent.remaining());
+      extent.put(b, off, length);
+      this.size += length;
+      off += length;
+      len -= length;
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    extent().put((byte) b);
+    this.size++;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return !this.closed;
+  }
+
+  /**
+   * Method is used to truncate the file to the number of bytes written and close it. The reference to the last
+   * extent is dropped first, but the mapping itself is only released when the buffer is collected.
+   *
+   * @throws IOException Exception thrown if the file cannot be truncated or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    final MappedByteBuffer extent = this.extent;
+    this.extent = null;
+    try {
+      if (null != extent && this.sync) {
+        extent.force();
+      }
+      log.trace("close() - Truncating '{}' to {} byte(s).", this.path, this.size);
+      this.channel.truncate(this.size);
+      if (this.sync) {
+        this.channel.force(true);
+      }
+    } finally {
+      this.channel.close();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+/**
+ * Listener that receives metrics from a writer. Set with {@link VerticaStreamWriterBuilder#metricsListener(MetricsListener)}.
+ * Methods are called on the thread that performs the work, which may be an encoder or I/O thread, so implementations
+ * must be thread safe and should not block. {@link WriterMetrics} is an implementation backed by striped counters.
+ */
+public interface MetricsListener {
+  /**
+   * Method is called after rows have been written.
+   *
+   * @param rows  number of rows.
+   * @param bytes number of uncompressed bytes for the rows.
+   */
+  default void rowsWritten(long rows, long bytes) {
+  }
+
+  /**
+   * Method is called when a null value is written.
+   *
+   * @param column index of the column.
+   */
+  default void nullWritten(int column) {
+  }
+
+  /**
+   * Method is called with the time taken to encode a value. Only one row in every
+   * {@link VerticaStreamWriterBuilder#metricsSampleInterval()} rows is timed.
+   *
+   * @param type  type of the column.
+   * @param nanos time taken to encode the value in nanoseconds.
+   */
+  default void valueEncoded(VerticaColumnType type, long nanos) {
+  }
+
+  /**
+   * Method is called after uncompressed data has been written to the stream. The time includes compression when the
+   * stream is compressed on the calling thread.
+   *
+   * @param bytes number of bytes.
+   * @param nanos time blocked in the write in nanoseconds.
+   */
+  default void bytesWritten(long bytes, long nanos) {
+  }
+
+  /**
+   * Method is called after compressed data has been written to the stream supplied to the builder.
+   *
+   * @param bytes number of bytes.
+   * @param nanos time blocked in the write in nanoseconds.
+   */
+  default void compressedBytesWritten(long bytes, long nanos) {
+  }
+
+  /**
+   * Method is called after the writer has been flushed.
+   */
+  default void flushed() {
+  }
+}
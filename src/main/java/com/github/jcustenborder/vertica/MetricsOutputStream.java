@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream placed between a compressor and the stream supplied to the builder to report the compressed bytes and the
+ * time blocked writing them.
+ */
+class MetricsOutputStream extends FilterOutputStream {
+  final MetricsListener listener;
+
+  MetricsOutputStream(OutputStream out, MetricsListener listener) {
+    super(out);
+    this.listener = listener;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    final long start = System.nanoTime();
+    this.out.write(b);
+    this.listener.compressedBytesWritten(1, System.nanoTime() - start);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    final long start = System.nanoTime();
+    this.out.write(b, off, len);
+    this.listener.compressedBytesWritten(len, System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MurmurHash3 (x86, 32-bit) over a range of a buffer using the hash of the previous column as the seed.
+ */
+class Murmur3SegmentHasher implements SegmentHasher {
+  static final int C1 = 0xcc9e2d51;
+  static final int C2 = 0x1b873593;
+  static final int NULL_HASH = 0x9e3779b9;
+
+  static int mixK1(int k1) {
+    k1 *= C1;
+    k1 = Integer.rotateLeft(k1, 15);
+    k1 *= C2;
+    return k1;
+  }
+
+  static int mixH1(int h1, int k1) {
+    h1 ^= k1;
+    h1 = Integer.rotateLeft(h1, 13);
+    h1 = h1 * 5 + 0xe6546b64;
+    return h1;
+  }
+
+  static int fmix(int h1, int length) {
+    h1 ^= length;
+    h1 ^= h1 >>> 16;
+    h1 *= 0x85ebca6b;
+    h1 ^= h1 >>> 13;
+    h1 *= 0xc2b2ae35;
+    h1 ^= h1 >>> 16;
+    return h1;
+  }
+
+  @Override
+  public int hash(int hash, ByteBuffer buffer, int offset, int length) {
+    if (length < 0) {
+      return fmix(mixH1(hash, mixK1(NULL_HASH)), 0);
+    }
+    int h1 = hash;
+    final int blocks = length & ~3;
+    for (int i = 0; i < blocks; i += 4) {
+      final int k1 = (buffer.get(offset + i) & 0xFF)
+          | (buffer.get(offset + i + 1) & 0xFF) << 8
+          | (buffer.get(offset + i + 2) & 0xFF) << 16
+          | (buffer.get(offset + i + 3) & 0xFF) << 24;
+      h1 = mixH1(h1, mixK1(k1));
+    }
+    final int tail = length & 3;
+    if (tail > 0) {
+      int k1 = 0;
+      if (tail == 3) {
+        k1 ^= (buffer.get(offset + blocks + 2) & 0xFF) << 16;
+      }
+      if (tail >= 2) {
+        k1 ^= (buffer.get(offset + blocks + 1) & 0xFF) << 8;
+      }
+      k1 ^= buffer.get(offset + blocks) & 0xFF;
+      h1 ^= mixK1(k1);
+    }
+    return fmix(h1, length);
+  }
+}
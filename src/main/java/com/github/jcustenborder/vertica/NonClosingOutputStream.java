@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream that flushes instead of closing the stream it wraps. Used between a compressor and a stream supplied by
+ * the caller so that closing the compressor writes its trailer without closing the caller's stream.
+ */
+class NonClosingOutputStream extends FilterOutputStream {
+  NonClosingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    this.out.write(b, off, len);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.out.flush();
+  }
+}
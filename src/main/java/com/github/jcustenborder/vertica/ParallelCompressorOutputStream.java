@@ -0,0 +1,210 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stream that splits the data written to it into blocks and compresses each block independently on a pool of
+ * threads. Each block is written as a complete compressed stream, in the order it was written, so the output is a
+ * concatenation of gzip members, bzip2 streams or LZO blocks that decompresses to the original data.
+ */
+class ParallelCompressorOutputStream extends OutputStream {
+  private static final Logger log = LoggerFactory.getLogger(ParallelCompressorOutputStream.class);
+  final OutputStream outputStream;
+  final CompressorFactory compressorFactory;
+  final WriterEvents events;
+  final ExecutorService executor;
+  final Deque<Future<Block>> pending = new ArrayDeque<>();
+  final Deque<Block> freeBlocks = new ArrayDeque<>();
+  final int blockSize;
+  final int maxPending;
+  Block current;
+  boolean closed;
+
+  /**
+   * Data that is compressed together.
+   */
+  static class Block {
+    final byte[] data;
+    int length;
+    final ByteArrayOutputStream compressed;
+
+    Block(int blockSize) {
+      this.data = new byte[blockSize];
+      this.compressed = new ByteArrayOutputStream(blockSize / 2);
+    }
+  }
+
+  ParallelCompressorOutputStream(
+      OutputStream outputStream,
+      CompressorFactory compressorFactory,
+      int blockSize,
+      int threads,
+      WriterEvents events
+  ) {
+    Preconditions.checkNotNull(outputStream, "outputStream cannot be null.");
+    Preconditions.checkNotNull(compressorFactory, "compressorFactory cannot be null.");
+    Preconditions.checkNotNull(events, "events cannot be null.");
+    Preconditions.checkState(blockSize > 0, "blockSize must be greater than zero.");
+    Preconditions.checkState(threads > 0, "threads must be greater than zero.");
+    this.outputStream = outputStream;
+    this.compressorFactory = compressorFactory;
+    this.events = events;
+    this.blockSize = blockSize;
+    this.maxPending = threads * 2;
+    log.trace("ctor() - Starting {} compression thread(s) with a block size of {} byte(s).", threads, blockSize);
+    this.executor = Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("vertica-compressor-%d")
+            .build()
+    );
+  }
+
+  Block compress(Block block) throws IOException {
+    final Object event = this.events.beginCompress();
+    block.compressed.reset();
+    try (OutputStream compressor = this.compressorFactory.create(block.compressed)) {
+      compressor.write(block.data, 0, block.length);
+    }
+    this.events.endCompress(event, block.length, block.compressed.size());
+    log.trace("compress() - Compressed {} byte(s) to {} byte(s).", block.length, block.compressed.size());
+    return block;
+  }
+
+  void submitCurrent() throws IOException {
+    if (null == this.current || 0 == this.current.length) {
+      return;
+    }
+    final Block block = this.current;
+    this.current = null;
+    this.pending.add(this.executor.submit(() -> compress(block)));
+    while (this.pending.size() >= this.maxPending) {
+      writePending();
+    }
+    while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+      writePending();
+    }
+  }
+
+  /**
+   * Method is used to write the oldest pending block, waiting for it to be compressed if needed.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void writePending() throws IOException {
+    final Future<Block> future = this.pending.poll();
+    final Block block;
+    try {
+      block = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a block to be compressed.");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Exception thrown while compressing block.", cause);
+    }
+    block.compressed.writeTo(this.outputStream);
+    block.length = 0;
+    this.freeBlocks.add(block);
+  }
+
+  void drain() throws IOException {
+    submitCurrent();
+    while (!this.pending.isEmpty()) {
+      writePending();
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    Preconditions.checkState(!this.closed, "Stream is closed.");
+    while (len > 0) {
+      if (null == this.current) {
+        this.current = this.freeBlocks.poll();
+        if (null == this.current) {
+          log.trace("write() - Allocating block of {} byte(s).", this.blockSize);
+          this.current = new Block(this.blockSize);
+        }
+      }
+      final int length = Math.min(len, this.blockSize - this.current.length);
+      System.arraycopy(b, off, this.current.data, this.current.length, length);
+      this.current.length += length;
+      off += length;
+      len -= length;
+      if (this.blockSize == this.current.length) {
+        submitCurrent();
+      }
+    }
+  }
+
+  /**
+   * Method is used to compress and write all of the data that has been written so far. The pending data is
+   * written as a complete compressed block.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+    this.outputStream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      drain();
+    } finally {
+      try {
+        this.outputStream.close();
+      } finally {
+        this.executor.shutdownNow();
+      }
+    }
+  }
+}
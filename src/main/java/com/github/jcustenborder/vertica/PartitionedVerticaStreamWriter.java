@@ -0,0 +1,323 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Writer that routes each row to one of several native streams based on a hash of the segmentation columns. Rows
+ * are encoded once, the hash is computed over the encoded bytes of the segmentation columns and the encoded row is
+ * written to the stream for the segment. The unsigned 32-bit hash space is split into
+ * {@link VerticaStreamWriterBuilder#segmentCount()} equal ranges.
+ * <p>
+ * The {@link SegmentHasher} must be set on the builder, there is no default. Files that must line up with the node
+ * ranges of a segmented projection need a hasher that reproduces the HASH() function of the projection.
+ * {@link SegmentHasher#MURMUR3} does not match it and only spreads rows evenly across the segments.
+ */
+public final class PartitionedVerticaStreamWriter implements VerticaStreamWriter {
+  private static final Logger log = LoggerFactory.getLogger(PartitionedVerticaStreamWriter.class);
+  final List<VerticaColumnInfo> columns;
+  final VerticaNativeStreamWriter[] segments;
+  final RowEncoder rowEncoder;
+  final RowBuffer rowBuffer;
+  final RowMetrics metrics;
+  final WriterEvents events;
+  final int rowHeaderSize;
+  final SegmentHasher segmentHasher;
+  final int[] segmentationColumns;
+  final boolean[] variableLength;
+  final int lastSegmentationColumn;
+  final int[] valueOffsets;
+  final int[] valueLengths;
+  boolean closed;
+
+  /**
+   * Opens the stream for a segment.
+   */
+  public interface SegmentSink {
+    /**
+     * Method is used to open the stream for a segment. The stream is closed by the writer when it is closed.
+     *
+     * @param segment index of the segment starting at 0.
+     * @return stream for the segment.
+     * @throws IOException Exception thrown if the stream cannot be opened.
+     */
+    OutputStream open(int segment) throws IOException;
+  }
+
+  PartitionedVerticaStreamWriter(VerticaStreamWriterBuilder builder, SegmentSink sink) throws IOException {
+    Preconditions.checkNotNull(sink, "sink cannot be null.");
+    Preconditions.checkState(builder.segmentCount > 0, "segmentCount must be greater than zero.");
+    Preconditions.checkState(
+        null != builder.segmentHasher,
+        "segmentHasher must be set. SegmentHasher.MURMUR3 spreads rows evenly but does not match Vertica's HASH()."
+    );
+    Preconditions.checkState(
+        !builder.segmentationColumns.isEmpty(),
+        "segmentationColumns must contain at least one column."
+    );
+    this.columns = VerticaColumnInfo.copyOf(builder.columnInfos);
+    this.segmentHasher = builder.segmentHasher;
+    this.segmentationColumns = new int[builder.segmentationColumns.size()];
+    int lastSegmentationColumn = -1;
+    for (int i = 0; i < this.segmentationColumns.length; i++) {
+      final String name = builder.segmentationColumns.get(i);
+      int index = -1;
+      for (int j = 0; j < this.columns.size(); j++) {
+        if (this.columns.get(j).name.equals(name)) {
+          index = j;
+          break;
+        }
+      }
+      Preconditions.checkState(index > -1, "Segmentation column '%s' was not found.", name);
+      this.segmentationColumns[i] = index;
+      lastSegmentationColumn = Math.max(lastSegmentationColumn, index);
+    }
+    this.lastSegmentationColumn = lastSegmentationColumn;
+    this.valueOffsets = new int[lastSegmentationColumn + 1];
+    this.valueLengths = new int[lastSegmentationColumn + 1];
+    this.variableLength = new boolean[this.columns.size()];
+    for (int i = 0; i < this.variableLength.length; i++) {
+      final VerticaColumnType type = this.columns.get(i).type;
+      this.variableLength[i] = VerticaColumnType.VARCHAR == type || VerticaColumnType.VARBINARY == type;
+    }
+
+    this.rowEncoder = new InterpretedRowEncoder(this.columns);
+    this.rowHeaderSize = VerticaNativeStreamWriter.rowHeaderSize(this.columns.size());
+    this.rowBuffer = new RowBuffer(builder, this.columns);
+    this.metrics = RowMetrics.create(builder, this.columns);
+    this.events = WriterEvents.create(builder);
+
+    this.segments = new VerticaNativeStreamWriter[builder.segmentCount];
+    try {
+      for (int i = 0; i < this.segments.length; i++) {
+        log.trace("ctor() - Opening segment {}.", i);
+        final OutputStream outputStream = sink.open(i);
+        Preconditions.checkState(null != outputStream, "sink returned a null stream for segment %s.", i);
+        this.segments[i] = new VerticaNativeStreamWriter(builder, builder.compress(outputStream), true, false);
+      }
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Method is used to map a hash to a segment by splitting the unsigned 32-bit hash space into equal ranges.
+   *
+   * @param hash         hash of the segmentation columns.
+   * @param segmentCount number of segments.
+   * @return index of the segment.
+   */
+  static int segment(int hash, int segmentCount) {
+    return (int) (((hash & 0xFFFFFFFFL) * segmentCount) >>> 32);
+  }
+
+  /**
+   * Method is used to hash the segmentation columns of the row in the row buffer. The row is walked in place so
+   * no objects are allocated.
+   *
+   * @return hash of the segmentation columns.
+   */
+  int hash() {
+    final ByteBuffer buffer = this.rowBuffer.buffer();
+    int offset = this.rowHeaderSize;
+    for (int i = 0; i <= this.lastSegmentationColumn; i++) {
+      if (isNull(buffer, i)) {
+        this.valueOffsets[i] = offset;
+        this.valueLengths[i] = -1;
+      } else if (this.variableLength[i]) {
+        final int length = buffer.getInt(offset);
+        this.valueOffsets[i] = offset + 4;
+        this.valueLengths[i] = length;
+        offset += 4 + length;
+      } else {
+        final int length = this.columns.get(i).size;
+        this.valueOffsets[i] = offset;
+        this.valueLengths[i] = length;
+        offset += length;
+      }
+    }
+
+    int hash = 0;
+    for (int segmentationColumn : this.segmentationColumns) {
+      hash = this.segmentHasher.hash(
+          hash,
+          buffer,
+          this.valueOffsets[segmentationColumn],
+          this.valueLengths[segmentationColumn]
+      );
+    }
+    return hash;
+  }
+
+  static boolean isNull(ByteBuffer buffer, int index) {
+    final int bufferIndex = VerticaNativeStreamWriter.ROW_LENGTH_SIZE + index / 8;
+    return 0 != (buffer.get(bufferIndex) & (1 << 7 - index % 8));
+  }
+
+  ByteBuffer startRow() {
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+    return this.rowBuffer.start(this.rowHeaderSize);
+  }
+
+  int route() throws IOException {
+    final ByteBuffer buffer = this.rowBuffer.buffer();
+    VerticaNativeStreamWriter.endRow(buffer, this.rowHeaderSize);
+    if (null != this.metrics) {
+      this.metrics.nulls(buffer, 0, this.rowHeaderSize);
+    }
+    final int segment = segment(hash(), this.segments.length);
+    final int rowSize = buffer.remaining();
+    this.segments[segment].writeEncoded(buffer);
+    this.rowBuffer.written(rowSize);
+    this.segments[segment].rowsWritten(1, rowSize);
+    return rowSize;
+  }
+
+  @Override
+  public void write(Object[] row) throws IOException {
+    Preconditions.checkNotNull(row, "row cannot be null.");
+    Preconditions.checkState(this.columns.size() == row.length, "The length of the row array must be equal to the number of columns");
+
+    final Object event = this.events.beginEncode();
+    while (true) {
+      final ByteBuffer buffer = startRow();
+      try {
+        if (null != this.metrics && this.metrics.sample()) {
+          this.metrics.encode(buffer, row);
+        } else {
+          this.rowEncoder.encode(buffer, row);
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        this.rowBuffer.grow(e);
+      }
+    }
+    this.events.endEncode(event, 1, route());
+  }
+
+  @Override
+  public VerticaRow newRow() {
+    return new VerticaRow(this.columns);
+  }
+
+  @Override
+  public void commit(VerticaRow row) throws IOException {
+    VerticaRow.checkRow(row, this.columns);
+
+    final Object event = this.events.beginEncode();
+    while (true) {
+      final ByteBuffer buffer = startRow();
+      try {
+        if (null != this.metrics && this.metrics.sample()) {
+          this.metrics.encode(buffer, row);
+        } else {
+          row.encode(buffer);
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        this.rowBuffer.grow(e);
+      }
+    }
+    this.events.endEncode(event, 1, route());
+  }
+
+  @Override
+  public void writeBatch(ColumnBatch batch) throws IOException {
+    Preconditions.checkNotNull(batch, "batch cannot be null.");
+    batch.validate(this.columns);
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+
+    final Object event = this.events.beginEncode();
+    long bytes = 0;
+    for (int row = 0; row < batch.rowCount; row++) {
+      while (true) {
+        final ByteBuffer buffer = startRow();
+        try {
+          if (null != this.metrics && this.metrics.sample()) {
+            this.metrics.encode(buffer, batch, row);
+          } else {
+            batch.encode(buffer, this.columns, row);
+          }
+          break;
+        } catch (BufferOverflowException e) {
+          this.rowBuffer.grow(e);
+        }
+      }
+      bytes += route();
+    }
+    this.events.endEncode(event, batch.rowCount, bytes);
+  }
+
+  /**
+   * Method is used to flush the stream of every segment.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+    for (VerticaNativeStreamWriter segment : this.segments) {
+      segment.flush();
+    }
+  }
+
+  @Override
+  public List<VerticaColumnInfo> columns() {
+    return this.columns;
+  }
+
+  /**
+   * Method is used to close the stream of every segment.
+   *
+   * @throws IOException Exception thrown if a stream could not be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    IOException exception = null;
+    for (VerticaNativeStreamWriter segment : this.segments) {
+      if (null == segment) {
+        continue;
+      }
+      try {
+        segment.close();
+      } catch (IOException e) {
+        if (null == exception) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+    }
+    this.rowBuffer.release();
+    if (null != exception) {
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,441 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writer that encodes rows on a pool of threads. Rows are collected into chunks on the calling thread and each
+ * chunk is encoded by a worker with its own copy of the columns and row buffer. Encoded chunks are written to the
+ * underlying {@link VerticaNativeStreamWriter} by the calling thread in the order the rows were written. If a chunk
+ * fails to encode the writer fails for good, so rows written after the failed chunk never reach the stream and the
+ * output does not contain a gap.
+ */
+class PipelinedVerticaStreamWriter implements VerticaStreamWriter {
+  private static final Logger log = LoggerFactory.getLogger(PipelinedVerticaStreamWriter.class);
+  static final int INITIAL_CHUNK_BUFFER_SIZE = 64 * 1024;
+  final VerticaNativeStreamWriter output;
+  final List<VerticaColumnInfo> columns;
+  final ExecutorService executor;
+  final BufferAllocator bufferAllocator;
+  final BlockingQueue<Worker> workers;
+  final Deque<Chunk> freeChunks = new ArrayDeque<>();
+  final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+  final int chunkSize;
+  final int maxPending;
+  Chunk current;
+  Throwable failure;
+
+  /**
+   * State used by a thread to encode a chunk.
+   */
+  static class Worker {
+    final List<VerticaColumnInfo> columns;
+    final RowEncoder rowEncoder;
+    final RowBuffer rowBuffer;
+    final int rowHeaderSize;
+    final RowMetrics metrics;
+    /**
+     * Row on the columns of the worker that committed rows are copied to before they are encoded.
+     */
+    final VerticaRow row;
+
+    Worker(VerticaStreamWriterBuilder builder, List<VerticaColumnInfo> columns) {
+      final List<VerticaColumnInfo> copies = VerticaColumnInfo.copyOf(columns);
+      this.columns = copies;
+      this.row = new VerticaRow(copies);
+      this.rowEncoder = new InterpretedRowEncoder(copies);
+      this.rowBuffer = new RowBuffer(builder, copies);
+      this.rowHeaderSize = VerticaNativeStreamWriter.rowHeaderSize(copies.size());
+      this.metrics = RowMetrics.create(builder, copies);
+    }
+  }
+
+  /**
+   * Rows that are encoded together. Each row is either an array from {@link #write(Object[])} or a copy of a row from
+   * {@link #commit(VerticaRow)}.
+   */
+  static class Chunk {
+    final Object[][] rows;
+    final VerticaRow[] committedRows;
+    final boolean[] committed;
+    int count;
+    ColumnBatch batch;
+    int batchFrom;
+    int batchTo;
+    ByteBuffer encoded = ByteBuffer.allocate(INITIAL_CHUNK_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    Chunk(int chunkSize, int columnCount) {
+      this.rows = new Object[chunkSize][columnCount];
+      this.committedRows = new VerticaRow[chunkSize];
+      this.committed = new boolean[chunkSize];
+    }
+
+    void reset() {
+      this.count = 0;
+      this.batch = null;
+      this.encoded.clear();
+    }
+  }
+
+  PipelinedVerticaStreamWriter(VerticaStreamWriterBuilder builder, VerticaNativeStreamWriter output) {
+    Preconditions.checkState(builder.encoderThreads > 0, "encoderThreads must be greater than zero.");
+    this.output = output;
+    this.columns = output.columns;
+    this.chunkSize = builder.encoderChunkSize;
+    this.maxPending = builder.encoderThreads * 2;
+    this.bufferAllocator = builder.bufferAllocator;
+    this.workers = new ArrayBlockingQueue<>(builder.encoderThreads);
+    for (int i = 0; i < builder.encoderThreads; i++) {
+      this.workers.add(new Worker(builder, this.columns));
+    }
+    log.trace("ctor() - Starting {} encoder thread(s).", builder.encoderThreads);
+    this.executor = Executors.newFixedThreadPool(
+        builder.encoderThreads,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("vertica-encoder-%d")
+            .build()
+    );
+  }
+
+  static ByteBuffer ensureRemaining(ByteBuffer buffer, int required) {
+    if (buffer.remaining() >= required) {
+      return buffer;
+    }
+    final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+    log.trace("ensureRemaining() - Growing chunk buffer to {} byte(s).", capacity);
+    ByteBuffer result = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.flip();
+    result.put(buffer);
+    return result;
+  }
+
+  static void append(Worker worker, Chunk chunk, ByteBuffer rowBuffer) {
+    VerticaNativeStreamWriter.endRow(rowBuffer, worker.rowHeaderSize);
+    if (null != worker.metrics) {
+      worker.metrics.nulls(rowBuffer, 0, worker.rowHeaderSize);
+    }
+    final int rowSize = rowBuffer.remaining();
+    chunk.encoded = ensureRemaining(chunk.encoded, rowSize);
+    chunk.encoded.put(rowBuffer);
+    worker.rowBuffer.written(rowSize);
+  }
+
+  Chunk encode(Chunk chunk) throws InterruptedException {
+    final Worker worker = this.workers.take();
+    final Object event = this.output.events.beginEncode();
+    try {
+      if (null != chunk.batch) {
+        for (int row = chunk.batchFrom; row < chunk.batchTo; row++) {
+          ByteBuffer rowBuffer;
+          while (true) {
+            rowBuffer = worker.rowBuffer.start(worker.rowHeaderSize);
+            try {
+              if (null != worker.metrics && worker.metrics.sample()) {
+                worker.metrics.encode(rowBuffer, chunk.batch, row);
+              } else {
+                chunk.batch.encode(rowBuffer, worker.columns, row);
+              }
+              break;
+            } catch (BufferOverflowException e) {
+              worker.rowBuffer.grow(e);
+            }
+          }
+          append(worker, chunk, rowBuffer);
+        }
+      } else {
+        for (int i = 0; i < chunk.count; i++) {
+          final Object[] row = chunk.rows[i];
+          final boolean committed = chunk.committed[i];
+          if (committed) {
+            chunk.committedRows[i].copyTo(worker.row);
+          }
+          ByteBuffer rowBuffer;
+          while (true) {
+            rowBuffer = worker.rowBuffer.start(worker.rowHeaderSize);
+            try {
+              final boolean sample = null != worker.metrics && worker.metrics.sample();
+              if (committed) {
+                if (sample) {
+                  worker.metrics.encode(rowBuffer, worker.row);
+                } else {
+                  worker.row.encode(rowBuffer);
+                }
+              } else if (sample) {
+                worker.metrics.encode(rowBuffer, row);
+              } else {
+                worker.rowEncoder.encode(rowBuffer, row);
+              }
+              break;
+            } catch (BufferOverflowException e) {
+              worker.rowBuffer.grow(e);
+            }
+          }
+          append(worker, chunk, rowBuffer);
+          if (committed) {
+            chunk.committed[i] = false;
+            chunk.committedRows[i].clear();
+          } else {
+            Arrays.fill(row, null);
+          }
+        }
+      }
+      chunk.encoded.flip();
+      this.output.events.endEncode(
+          event,
+          null != chunk.batch ? chunk.batchTo - chunk.batchFrom : chunk.count,
+          chunk.encoded.remaining()
+      );
+      return chunk;
+    } finally {
+      this.workers.add(worker);
+    }
+  }
+
+  Chunk nextChunk() {
+    Chunk chunk = this.freeChunks.poll();
+    if (null == chunk) {
+      log.trace("nextChunk() - Allocating chunk for {} row(s).", this.chunkSize);
+      chunk = new Chunk(this.chunkSize, this.columns.size());
+    }
+    return chunk;
+  }
+
+  void submit(Chunk chunk) throws IOException {
+    this.pending.add(this.executor.submit(() -> encode(chunk)));
+    while (this.pending.size() >= this.maxPending) {
+      writePending();
+    }
+    while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+      writePending();
+    }
+  }
+
+  void submitCurrent() throws IOException {
+    if (null != this.current) {
+      final Chunk chunk = this.current;
+      this.current = null;
+      submit(chunk);
+    }
+  }
+
+  /**
+   * Method is used to write the oldest pending chunk to the output, waiting for it to be encoded if needed.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void writePending() throws IOException {
+    final Future<Chunk> future = this.pending.poll();
+    final Chunk chunk;
+    try {
+      chunk = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.failure = e;
+      discardPending();
+      throw new InterruptedIOException("Interrupted while waiting for rows to be encoded.");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      log.error("writePending() - Exception thrown while encoding rows. The writer cannot be used.", cause);
+      this.failure = cause;
+      discardPending();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Exception thrown while encoding rows.", cause);
+    }
+    log.trace("writePending() - Writing {} byte(s).", chunk.encoded.remaining());
+    final int rows = null != chunk.batch ? chunk.batchTo - chunk.batchFrom : chunk.count;
+    final int bytes = chunk.encoded.remaining();
+    this.output.writeEncoded(chunk.encoded);
+    this.output.rowsWritten(rows, bytes);
+    chunk.reset();
+    this.freeChunks.add(chunk);
+  }
+
+  /**
+   * Method is used to wait for the chunks that are still being encoded after a failure and discard them. This
+   * returns every worker to the pool so their buffers can be released.
+   */
+  void discardPending() {
+    this.current = null;
+    boolean interrupted = false;
+    Future<Chunk> future;
+    while (null != (future = this.pending.poll())) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          log.trace("discardPending() - Discarding chunk that failed to encode.", e.getCause());
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Method is used to check that a previous chunk did not fail to encode.
+   *
+   * @exception IllegalStateException Exception thrown if a chunk failed to encode.
+   */
+  void checkFailure() {
+    if (null != this.failure) {
+      throw new IllegalStateException(
+          "A previous row failed to encode. The writer cannot be used.",
+          this.failure
+      );
+    }
+  }
+
+  void drain() throws IOException {
+    checkFailure();
+    submitCurrent();
+    while (!this.pending.isEmpty()) {
+      writePending();
+    }
+  }
+
+  @Override
+  public void write(Object[] row) throws IOException {
+    Preconditions.checkNotNull(row, "row cannot be null.");
+    Preconditions.checkState(this.columns.size() == row.length, "The length of the row array must be equal to the number of columns");
+    checkFailure();
+
+    if (null == this.current) {
+      this.current = nextChunk();
+    }
+    System.arraycopy(row, 0, this.current.rows[this.current.count], 0, row.length);
+    this.current.count++;
+
+    if (this.chunkSize == this.current.count) {
+      submitCurrent();
+    }
+  }
+
+  @Override
+  public VerticaRow newRow() {
+    return this.output.newRow();
+  }
+
+  /**
+   * Method is used to write a row to the stream. The values of the row are copied into the current chunk so the row
+   * can be modified once this method returns. Byte arrays and objects set on the row are referenced until the chunk
+   * is encoded, the same as the values of {@link #write(Object[])}.
+   *
+   * @param row Row created by {@link #newRow()}.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void commit(VerticaRow row) throws IOException {
+    VerticaRow.checkRow(row, this.columns);
+    checkFailure();
+
+    if (null == this.current) {
+      this.current = nextChunk();
+    }
+    final int index = this.current.count;
+    VerticaRow target = this.current.committedRows[index];
+    if (null == target) {
+      target = new VerticaRow(this.columns);
+      this.current.committedRows[index] = target;
+    }
+    row.copyTo(target);
+    this.current.committed[index] = true;
+    this.current.count++;
+
+    if (this.chunkSize == this.current.count) {
+      submitCurrent();
+    }
+  }
+
+  @Override
+  public void writeBatch(ColumnBatch batch) throws IOException {
+    Preconditions.checkNotNull(batch, "batch cannot be null.");
+    batch.validate(this.columns);
+    checkFailure();
+    submitCurrent();
+
+    for (int from = 0; from < batch.rowCount; from += this.chunkSize) {
+      Chunk chunk = nextChunk();
+      chunk.batch = batch;
+      chunk.batchFrom = from;
+      chunk.batchTo = Math.min(batch.rowCount, from + this.chunkSize);
+      submit(chunk);
+    }
+
+    // The batch can be reused by the caller once this method returns.
+    drain();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    drain();
+    this.output.flush();
+  }
+
+  @Override
+  public List<VerticaColumnInfo> columns() {
+    return this.columns;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (null == this.failure) {
+        drain();
+      }
+    } finally {
+      try {
+        discardPending();
+        this.output.close();
+      } finally {
+        // Every chunk has been encoded or discarded so the workers are idle.
+        for (Worker worker : this.workers) {
+          worker.rowBuffer.release();
+        }
+        this.executor.shutdownNow();
+      }
+    }
+  }
+}
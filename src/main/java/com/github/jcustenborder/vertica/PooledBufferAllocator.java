@@ -0,0 +1,284 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.MapMaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator that pools direct buffers in power of two size classes so they can be shared by writers. The total
+ * capacity of the direct buffers owned by the allocator, whether they are in use or pooled, never exceeds
+ * {@link #maxBytes()}. Requests that would exceed it, or are larger than the largest size class, are served with
+ * heap buffers that are not pooled. Only direct buffers that were handed out by the allocator and not yet released are
+ * accepted by {@link #release(ByteBuffer)}, so foreign buffers and buffers released twice do not grow the pool.
+ * <p>
+ * A buffer that is collected without being released, for example by a writer that was never closed, is detected when
+ * the allocator is next used. Its bytes are returned to {@link #maxBytes()} and a warning is logged. Pooled buffers
+ * are kept until {@link #trim()} is called.
+ */
+public final class PooledBufferAllocator implements BufferAllocator {
+  private static final Logger log = LoggerFactory.getLogger(PooledBufferAllocator.class);
+  static final int MIN_SIZE_CLASS_SHIFT = 12;
+  static final int MAX_SIZE_CLASS_SHIFT = 28;
+  /**
+   * Default maximum number of bytes of direct memory used by {@link #shared()}. The shared allocator uses less when
+   * a quarter of the direct memory limit of the JVM is smaller.
+   */
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024L * 1024L;
+  private static final PooledBufferAllocator SHARED = new PooledBufferAllocator(
+      Math.min(DEFAULT_MAX_BYTES, maxDirectMemory() / 4)
+  );
+
+  final long maxBytes;
+  final AtomicLong allocatedBytes = new AtomicLong();
+  final List<Queue<ByteBuffer>> pools;
+  /**
+   * Direct buffers that are in use. Keys are compared by identity and held weakly so a buffer that is never
+   * released can still be collected.
+   */
+  final Map<ByteBuffer, BufferReference> outstanding = new MapMaker().weakKeys().makeMap();
+  /**
+   * References to the buffers that are in use. They are held strongly so they are enqueued once the buffer is
+   * collected.
+   */
+  final Set<BufferReference> references = ConcurrentHashMap.newKeySet();
+  final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+
+  /**
+   * Reference to a buffer that is in use, used to return the bytes of the buffer when it is collected.
+   */
+  static final class BufferReference extends WeakReference<ByteBuffer> {
+    final int size;
+
+    BufferReference(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+      super(buffer, queue);
+      this.size = buffer.capacity();
+    }
+  }
+
+  /**
+   * Creates an allocator.
+   *
+   * @param maxBytes maximum number of bytes of direct memory owned by the allocator.
+   */
+  public PooledBufferAllocator(long maxBytes) {
+    Preconditions.checkState(maxBytes >= 0, "maxBytes must be greater than or equal to zero.");
+    this.maxBytes = maxBytes;
+    List<Queue<ByteBuffer>> pools = new ArrayList<>();
+    for (int shift = MIN_SIZE_CLASS_SHIFT; shift <= MAX_SIZE_CLASS_SHIFT; shift++) {
+      pools.add(new ConcurrentLinkedQueue<>());
+    }
+    this.pools = pools;
+  }
+
+  /**
+   * Allocator that is shared by writers unless another allocator is configured. It is limited to
+   * {@link #DEFAULT_MAX_BYTES} of direct memory.
+   *
+   * @return shared allocator.
+   */
+  public static PooledBufferAllocator shared() {
+    return SHARED;
+  }
+
+  /**
+   * Method is used to find the direct memory limit of the JVM. The limit is -XX:MaxDirectMemorySize when it is set
+   * and the maximum heap size otherwise, which is the default of the JVM.
+   *
+   * @return maximum number of bytes of direct memory.
+   */
+  static long maxDirectMemory() {
+    try {
+      for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+        if (argument.startsWith("-XX:MaxDirectMemorySize=")) {
+          return parseSize(argument.substring("-XX:MaxDirectMemorySize=".length()));
+        }
+      }
+    } catch (RuntimeException | LinkageError e) {
+      log.debug("maxDirectMemory() - Could not read the arguments of the JVM.", e);
+    }
+    return Runtime.getRuntime().maxMemory();
+  }
+
+  static long parseSize(String size) {
+    final char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+    final int shift;
+    switch (unit) {
+      case 'k':
+        shift = 10;
+        break;
+      case 'm':
+        shift = 20;
+        break;
+      case 'g':
+        shift = 30;
+        break;
+      case 't':
+        shift = 40;
+        break;
+      default:
+        return Long.parseLong(size);
+    }
+    return Long.parseLong(size.substring(0, size.length() - 1)) << shift;
+  }
+
+  /**
+   * Maximum number of bytes of direct memory owned by the allocator.
+   *
+   * @return Maximum number of bytes.
+   */
+  public long maxBytes() {
+    return this.maxBytes;
+  }
+
+  /**
+   * Number of bytes of direct memory currently owned by the allocator, including pooled buffers.
+   *
+   * @return Number of bytes.
+   */
+  public long allocatedBytes() {
+    reclaim();
+    return this.allocatedBytes.get();
+  }
+
+  /**
+   * Method is used to free the pooled buffers. Buffers that are in use are not affected.
+   */
+  public void trim() {
+    for (Queue<ByteBuffer> pool : this.pools) {
+      ByteBuffer buffer;
+      while (null != (buffer = pool.poll())) {
+        this.allocatedBytes.addAndGet(-buffer.capacity());
+      }
+    }
+  }
+
+  /**
+   * Method is used to return the bytes of buffers that were collected without being released.
+   */
+  void reclaim() {
+    Reference<? extends ByteBuffer> reference;
+    while (null != (reference = this.collected.poll())) {
+      if (this.references.remove(reference)) {
+        final int size = ((BufferReference) reference).size;
+        log.warn("reclaim() - A direct buffer of {} byte(s) was collected without being released.", size);
+        this.allocatedBytes.addAndGet(-size);
+      }
+    }
+  }
+
+  ByteBuffer track(ByteBuffer buffer) {
+    final BufferReference reference = new BufferReference(buffer, this.collected);
+    this.references.add(reference);
+    this.outstanding.put(buffer, reference);
+    return buffer;
+  }
+
+  /**
+   * Method is used to find the size class for a capacity.
+   *
+   * @param capacity capacity of the buffer.
+   * @return index of the size class or -1 if the capacity is larger than the largest size class.
+   */
+  static int sizeClass(int capacity) {
+    if (capacity <= (1 << MIN_SIZE_CLASS_SHIFT)) {
+      return 0;
+    }
+    final int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    return shift > MAX_SIZE_CLASS_SHIFT ? -1 : shift - MIN_SIZE_CLASS_SHIFT;
+  }
+
+  boolean reserve(int size) {
+    while (true) {
+      final long current = this.allocatedBytes.get();
+      if (current + size > this.maxBytes) {
+        return false;
+      }
+      if (this.allocatedBytes.compareAndSet(current, current + size)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    Preconditions.checkState(capacity > 0, "capacity must be greater than zero.");
+    final int sizeClass = sizeClass(capacity);
+    if (sizeClass < 0) {
+      log.trace("allocate() - {} byte(s) is larger than the largest size class. Allocating heap buffer.", capacity);
+      return ByteBuffer.allocate(capacity);
+    }
+
+    reclaim();
+    ByteBuffer buffer = this.pools.get(sizeClass).poll();
+    if (null != buffer) {
+      buffer.clear();
+      return track(buffer);
+    }
+
+    final int size = 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT);
+    if (!reserve(size)) {
+      log.debug(
+          "allocate() - Allocating {} byte(s) would exceed maxBytes of {}. Allocating heap buffer.",
+          size,
+          this.maxBytes
+      );
+      return ByteBuffer.allocate(capacity);
+    }
+    log.trace("allocate() - Allocating direct buffer of {} byte(s).", size);
+    try {
+      buffer = ByteBuffer.allocateDirect(size);
+    } catch (OutOfMemoryError e) {
+      this.allocatedBytes.addAndGet(-size);
+      log.warn("allocate() - Direct memory is exhausted. Allocating heap buffer of {} byte(s).", capacity, e);
+      return ByteBuffer.allocate(capacity);
+    }
+    return track(buffer);
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    if (null == buffer || !buffer.isDirect()) {
+      return;
+    }
+    final BufferReference reference = this.outstanding.remove(buffer);
+    if (null == reference) {
+      log.trace("release() - Ignoring direct buffer of {} byte(s) that is not in use from this allocator.", buffer.capacity());
+      return;
+    }
+    this.references.remove(reference);
+    reference.clear();
+    final int sizeClass = sizeClass(buffer.capacity());
+    buffer.clear();
+    this.pools.get(sizeClass).offer(buffer);
+  }
+}
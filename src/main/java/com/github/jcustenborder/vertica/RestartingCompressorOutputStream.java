@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream that finishes the current compressed stream when it is flushed and starts a new one on the next write.
+ * Used for codecs without a sync flush such as bzip2 and ZSTD. The output is a concatenation of bzip2 streams or
+ * ZSTD frames, the same layout that {@link ParallelCompressorOutputStream} writes.
+ */
+class RestartingCompressorOutputStream extends OutputStream {
+  private static final Logger log = LoggerFactory.getLogger(RestartingCompressorOutputStream.class);
+  final OutputStream outputStream;
+  final CompressorFactory compressorFactory;
+  OutputStream compressor;
+  boolean closed;
+
+  RestartingCompressorOutputStream(OutputStream outputStream, CompressorFactory compressorFactory) {
+    Preconditions.checkNotNull(outputStream, "outputStream cannot be null.");
+    Preconditions.checkNotNull(compressorFactory, "compressorFactory cannot be null.");
+    this.outputStream = outputStream;
+    this.compressorFactory = compressorFactory;
+  }
+
+  OutputStream compressor() throws IOException {
+    Preconditions.checkState(!this.closed, "Stream is closed.");
+    if (null == this.compressor) {
+      log.trace("compressor() - Starting compressed stream.");
+      this.compressor = this.compressorFactory.create(new NonClosingOutputStream(this.outputStream));
+    }
+    return this.compressor;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    compressor().write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    compressor().write(b, off, len);
+  }
+
+  /**
+   * Method is used to finish the current compressed stream so every byte written so far can be decompressed.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (null != this.compressor) {
+      log.trace("flush() - Finishing compressed stream.");
+      final OutputStream compressor = this.compressor;
+      this.compressor = null;
+      compressor.close();
+    }
+    this.outputStream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      if (null != this.compressor) {
+        this.compressor.close();
+        this.compressor = null;
+      }
+    } finally {
+      this.outputStream.close();
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writer that splits the output into multiple parts. Each part is a complete native file with its own header and,
+ * when configured, its own compressed stream. A new part is started once the current part reaches
+ * {@link VerticaStreamWriterBuilder#rollingMaxBytes()} or {@link VerticaStreamWriterBuilder#rollingMaxRows()}.
+ * Thresholds are checked after each row so parts always end on a row boundary. Parts are only opened once a row is
+ * written, so a writer that is closed without writing rows does not create any parts.
+ */
+public final class RollingVerticaStreamWriter implements VerticaStreamWriter {
+  private static final Logger log = LoggerFactory.getLogger(RollingVerticaStreamWriter.class);
+  final VerticaStreamWriterBuilder builder;
+  final PartSink sink;
+  final PartListener listener;
+  final List<VerticaColumnInfo> columns;
+  final long maxBytes;
+  final long maxRows;
+  final boolean compressedBytes;
+  int index;
+  long rows;
+  CountingOutputStream countingOutputStream;
+  VerticaNativeStreamWriter current;
+
+  /**
+   * Opens the stream for a part.
+   */
+  public interface PartSink {
+    /**
+     * Method is used to open the stream for a part. The stream is closed by the writer once the part is complete.
+     *
+     * @param index index of the part starting at 0.
+     * @return stream for the part.
+     * @throws IOException Exception thrown if the stream cannot be opened.
+     */
+    OutputStream open(int index) throws IOException;
+  }
+
+  /**
+   * Receives parts once they are complete.
+   */
+  public interface PartListener {
+    /**
+     * Method is called once a part has been written and its stream closed.
+     *
+     * @param part part that was completed.
+     * @throws IOException Exception thrown if the part cannot be handled.
+     */
+    void completed(Part part) throws IOException;
+  }
+
+  /**
+   * Part that has been completed.
+   */
+  public static final class Part {
+    final int index;
+    final long rows;
+    final long bytes;
+    final long compressedBytes;
+
+    Part(int index, long rows, long bytes, long compressedBytes) {
+      this.index = index;
+      this.rows = rows;
+      this.bytes = bytes;
+      this.compressedBytes = compressedBytes;
+    }
+
+    /**
+     * Index of the part starting at 0.
+     *
+     * @return Index of the part.
+     */
+    public int index() {
+      return this.index;
+    }
+
+    /**
+     * Number of rows in the part.
+     *
+     * @return Number of rows in the part.
+     */
+    public long rows() {
+      return this.rows;
+    }
+
+    /**
+     * Number of bytes of native data in the part including the header.
+     *
+     * @return Number of uncompressed bytes.
+     */
+    public long bytes() {
+      return this.bytes;
+    }
+
+    /**
+     * Number of bytes written to the stream of the part. Equal to {@link #bytes()} if the part is not compressed.
+     *
+     * @return Number of bytes written to the stream.
+     */
+    public long compressedBytes() {
+      return this.compressedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Part{index=%s, rows=%s, bytes=%s, compressedBytes=%s}",
+          this.index,
+          this.rows,
+          this.bytes,
+          this.compressedBytes
+      );
+    }
+  }
+
+  RollingVerticaStreamWriter(VerticaStreamWriterBuilder builder, PartSink sink, PartListener listener) {
+    Preconditions.checkNotNull(sink, "sink cannot be null.");
+    Preconditions.checkNotNull(listener, "listener cannot be null.");
+    this.builder = builder;
+    this.sink = sink;
+    this.listener = listener;
+    this.columns = VerticaColumnInfo.copyOf(builder.columnInfos);
+    this.maxBytes = builder.rollingMaxBytes;
+    this.maxRows = builder.rollingMaxRows;
+    this.compressedBytes = builder.rollingCompressedBytes;
+  }
+
+  VerticaNativeStreamWriter current() throws IOException {
+    if (null == this.current) {
+      log.trace("current() - Opening part {}.", this.index);
+      final OutputStream outputStream = this.sink.open(this.index);
+      Preconditions.checkState(null != outputStream, "sink returned a null stream for part %s.", this.index);
+      this.countingOutputStream = new CountingOutputStream(outputStream);
+      final OutputStream stream = this.builder.compress(this.countingOutputStream);
+      // Every part encodes with the columns of this writer, so rows from newRow() can be committed to any part and
+      // the encoded value caches stay warm across parts.
+      this.current = new VerticaNativeStreamWriter(this.builder, stream, true, true, this.columns);
+      this.rows = 0;
+    }
+    return this.current;
+  }
+
+  /**
+   * Method is used to complete the current part if it has reached one of the thresholds.
+   *
+   * @throws IOException Exception thrown if the part cannot be completed.
+   */
+  void rowWritten() throws IOException {
+    this.rows++;
+    final long bytes = this.compressedBytes ? this.countingOutputStream.getCount() : this.current.bytesWritten;
+    if ((this.maxRows > 0 && this.rows >= this.maxRows) || (this.maxBytes > 0 && bytes >= this.maxBytes)) {
+      roll();
+    }
+  }
+
+  /**
+   * Method is used to close the current part and hand it to the listener. The next row starts a new part.
+   *
+   * @throws IOException Exception thrown if the part cannot be completed.
+   */
+  public void roll() throws IOException {
+    if (null == this.current) {
+      return;
+    }
+    final VerticaNativeStreamWriter writer = this.current;
+    this.current = null;
+    writer.close();
+    final Part part = new Part(this.index, this.rows, writer.bytesWritten, this.countingOutputStream.getCount());
+    this.countingOutputStream = null;
+    this.index++;
+    log.debug("roll() - Completed {}.", part);
+    this.listener.completed(part);
+  }
+
+  @Override
+  public void write(Object[] row) throws IOException {
+    current().write(row);
+    rowWritten();
+  }
+
+  @Override
+  public VerticaRow newRow() {
+    return new VerticaRow(this.columns);
+  }
+
+  @Override
+  public void commit(VerticaRow row) throws IOException {
+    current().commit(row);
+    rowWritten();
+  }
+
+  @Override
+  public void writeBatch(ColumnBatch batch) throws IOException {
+    Preconditions.checkNotNull(batch, "batch cannot be null.");
+    batch.validate(this.columns);
+
+    for (int row = 0; row < batch.rowCount; row++) {
+      current().writeBatchRow(batch, row);
+      rowWritten();
+    }
+  }
+
+  /**
+   * Method is used to flush the current part.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (null != this.current) {
+      this.current.flush();
+    }
+  }
+
+  @Override
+  public List<VerticaColumnInfo> columns() {
+    return this.columns;
+  }
+
+  /**
+   * Method is used to complete the current part.
+   *
+   * @throws IOException Exception thrown if the part cannot be completed.
+   */
+  @Override
+  public void close() throws IOException {
+    roll();
+  }
+}
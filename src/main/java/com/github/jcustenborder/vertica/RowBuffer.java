@@ -0,0 +1,166 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Buffer that a row is encoded into. The buffer starts at the configured row buffer size and is doubled when a row
+ * does not fit, up to the maximum row buffer size. Once {@link #SHRINK_AFTER_ROWS} consecutive rows use less than a
+ * quarter of a grown buffer it is halved, but never below the initial size.
+ */
+class RowBuffer {
+  private static final Logger log = LoggerFactory.getLogger(RowBuffer.class);
+  static final int SHRINK_AFTER_ROWS = 1024;
+  final BufferAllocator bufferAllocator;
+  final int initialSize;
+  final int maxSize;
+  final EncodedValueCache[] valueCaches;
+  ByteBuffer buffer;
+  int smallRows;
+
+  RowBuffer(BufferAllocator bufferAllocator, int initialSize, int maxSize) {
+    this(bufferAllocator, initialSize, maxSize, Collections.emptyList());
+  }
+
+  /**
+   * Creates a row buffer.
+   *
+   * @param bufferAllocator allocator for the buffer.
+   * @param initialSize     initial size of the buffer.
+   * @param maxSize         maximum size of the buffer.
+   * @param columns         columns encoded into the buffer. The pending lookups of their encoded value caches are
+   *                        discarded when a row is started and committed when it is written.
+   */
+  RowBuffer(BufferAllocator bufferAllocator, int initialSize, int maxSize, List<VerticaColumnInfo> columns) {
+    Preconditions.checkState(
+        maxSize >= initialSize,
+        "maxRowBufferSize(%s) must be greater than or equal to rowBufferSize(%s).",
+        maxSize,
+        initialSize
+    );
+    this.bufferAllocator = bufferAllocator;
+    this.initialSize = initialSize;
+    this.maxSize = maxSize;
+    final List<EncodedValueCache> valueCaches = new ArrayList<>();
+    for (VerticaColumnInfo columnInfo : columns) {
+      if (null != columnInfo.valueCache) {
+        valueCaches.add(columnInfo.valueCache);
+      }
+    }
+    this.valueCaches = valueCaches.toArray(new EncodedValueCache[valueCaches.size()]);
+    this.buffer = allocate(initialSize);
+  }
+
+  RowBuffer(VerticaStreamWriterBuilder builder, List<VerticaColumnInfo> columns) {
+    this(builder.bufferAllocator, builder.rowBufferSize, builder.maxRowBufferSize, columns);
+  }
+
+  ByteBuffer allocate(int size) {
+    return this.bufferAllocator.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * The current buffer. The buffer changes when it grows or shrinks.
+   *
+   * @return The current buffer.
+   */
+  ByteBuffer buffer() {
+    return this.buffer;
+  }
+
+  /**
+   * Method is used to reset the buffer and reserve the row header. Lookups of encoded value caches from a previous
+   * attempt at the row are discarded.
+   *
+   * @param rowHeaderSize size of the row header.
+   * @return buffer to encode the row into.
+   */
+  ByteBuffer start(int rowHeaderSize) {
+    for (EncodedValueCache valueCache : this.valueCaches) {
+      valueCache.discard();
+    }
+    VerticaNativeStreamWriter.startRow(this.buffer, rowHeaderSize);
+    if (this.buffer.capacity() > this.maxSize) {
+      this.buffer.limit(this.maxSize);
+    }
+    return this.buffer;
+  }
+
+  /**
+   * Method is called when a row did not fit in the buffer. The buffer is doubled so the row can be encoded again.
+   * The contents of the buffer are discarded.
+   *
+   * @param e exception thrown while encoding the row.
+   * @exception IllegalStateException Exception thrown if the buffer is already at the maximum size. The row is
+   *                                  rejected but the writer can still be used.
+   */
+  void grow(BufferOverflowException e) {
+    final int capacity = Math.min(this.buffer.capacity(), this.maxSize);
+    if (capacity >= this.maxSize) {
+      IllegalStateException exception = new IllegalStateException(
+          String.format("Row is larger than maxRowBufferSize of %s byte(s).", this.maxSize)
+      );
+      exception.initCause(e);
+      throw exception;
+    }
+    final int size = (int) Math.min((long) capacity * 2L, this.maxSize);
+    log.debug("grow() - Growing row buffer from {} to {} byte(s).", capacity, size);
+    replace(size);
+  }
+
+  /**
+   * Method is called after a row has been written so a grown buffer can be shrunk after a run of small rows. The
+   * lookups of encoded value caches for the row are committed. The contents of the buffer are discarded.
+   *
+   * @param rowSize size of the row including the header.
+   */
+  void written(int rowSize) {
+    for (EncodedValueCache valueCache : this.valueCaches) {
+      valueCache.commit();
+    }
+    final int capacity = this.buffer.capacity();
+    if (capacity <= this.initialSize || rowSize > capacity / 4) {
+      this.smallRows = 0;
+      return;
+    }
+    if (++this.smallRows >= SHRINK_AFTER_ROWS) {
+      final int size = Math.max(this.initialSize, capacity / 2);
+      log.debug("written() - Shrinking row buffer from {} to {} byte(s).", capacity, size);
+      replace(size);
+    }
+  }
+
+  void replace(int size) {
+    final ByteBuffer previous = this.buffer;
+    this.buffer = allocate(size);
+    this.bufferAllocator.release(previous);
+    this.smallRows = 0;
+  }
+
+  void release() {
+    this.bufferAllocator.release(this.buffer);
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface is used to encode the data of a row into the row buffer.
+ */
+interface RowEncoder {
+  /**
+   * Method is used to encode the data for a row. The row header must already be reserved in the buffer.
+   *
+   * @param buffer buffer to write to.
+   * @param row    values for the row. Must contain a value for each column.
+   */
+  void encode(ByteBuffer buffer, Object[] row);
+}
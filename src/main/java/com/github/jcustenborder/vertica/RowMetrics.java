@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Class is used by a single writer thread to report metrics to a {@link MetricsListener}. Writers keep a null
+ * reference when metrics are disabled so the only cost is a null check.
+ */
+class RowMetrics {
+  final MetricsListener listener;
+  final List<VerticaColumnInfo> columns;
+  final int sampleInterval;
+  int countdown;
+
+  RowMetrics(VerticaStreamWriterBuilder builder, List<VerticaColumnInfo> columns) {
+    this.listener = builder.metricsListener;
+    this.columns = columns;
+    this.sampleInterval = builder.metricsSampleInterval;
+    this.countdown = builder.metricsSampleInterval;
+  }
+
+  /**
+   * Method is used to create the metrics for a writer.
+   *
+   * @param builder builder for the writer.
+   * @param columns columns of the writer.
+   * @return metrics or null if metrics are disabled.
+   */
+  static RowMetrics create(VerticaStreamWriterBuilder builder, List<VerticaColumnInfo> columns) {
+    return null == builder.metricsListener ? null : new RowMetrics(builder, columns);
+  }
+
+  /**
+   * Method is used to determine if the next row should be timed.
+   *
+   * @return true if the row should be encoded with one of the timed encode methods.
+   */
+  boolean sample() {
+    if (--this.countdown > 0) {
+      return false;
+    }
+    this.countdown = this.sampleInterval;
+    return true;
+  }
+
+  /**
+   * Method is used to report the null values of an encoded row.
+   *
+   * @param buffer        buffer containing the row.
+   * @param offset        absolute offset of the row header.
+   * @param rowHeaderSize size of the row header.
+   */
+  void nulls(ByteBuffer buffer, int offset, int rowHeaderSize) {
+    for (int i = VerticaNativeStreamWriter.ROW_LENGTH_SIZE; i < rowHeaderSize; i++) {
+      final int marker = buffer.get(offset + i) & 0xFF;
+      if (0 == marker) {
+        continue;
+      }
+      final int first = (i - VerticaNativeStreamWriter.ROW_LENGTH_SIZE) * 8;
+      for (int bit = 0; bit < 8; bit++) {
+        if (0 != (marker & (1 << 7 - bit))) {
+          this.listener.nullWritten(first + bit);
+        }
+      }
+    }
+  }
+
+  void encode(ByteBuffer buffer, Object[] row) {
+    for (int i = 0; i < row.length; i++) {
+      final long start = System.nanoTime();
+      final Object value = row[i];
+      if (null == value) {
+        VerticaNativeStreamWriter.nullMarker(buffer, i);
+      } else {
+        this.columns.get(i).encode(buffer, value);
+      }
+      encoded(i, start);
+    }
+  }
+
+  void encode(ByteBuffer buffer, VerticaRow row) {
+    for (int i = 0; i < this.columns.size(); i++) {
+      final long start = System.nanoTime();
+      row.encodeColumn(buffer, i);
+      encoded(i, start);
+    }
+  }
+
+  void encode(ByteBuffer buffer, ColumnBatch batch, int row) {
+    for (int i = 0; i < this.columns.size(); i++) {
+      final long start = System.nanoTime();
+      batch.encodeColumn(buffer, this.columns, row, i);
+      encoded(i, start);
+    }
+  }
+
+  private void encoded(int column, long start) {
+    this.listener.valueEncoded(this.columns.get(column).type, System.nanoTime() - start);
+  }
+}
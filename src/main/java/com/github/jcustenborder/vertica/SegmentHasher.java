@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hash used by {@link PartitionedVerticaStreamWriter} to assign rows to segments. The hash is computed over the
+ * encoded bytes of the segmentation columns, one column at a time, so implementations must not allocate.
+ */
+public interface SegmentHasher {
+  /**
+   * MurmurHash3 (x86, 32-bit) chained across the segmentation columns.
+   */
+  SegmentHasher MURMUR3 = new Murmur3SegmentHasher();
+
+  /**
+   * Method is used to add the value of a column to the hash.
+   *
+   * @param hash   hash of the previous columns, 0 for the first column.
+   * @param buffer buffer containing the encoded row.
+   * @param offset absolute offset of the encoded value. Variable length values exclude the length prefix.
+   * @param length length of the encoded value or -1 if the value is null.
+   * @return hash including the column.
+   */
+  int hash(int hash, ByteBuffer buffer, int offset, int length);
+}
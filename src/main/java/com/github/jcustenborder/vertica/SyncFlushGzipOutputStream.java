@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip stream that performs a deflate SYNC_FLUSH when it is flushed. Every byte written before the flush can be
+ * decompressed by the reader without ending the gzip member, at the cost of a few bytes per flush.
+ */
+class SyncFlushGzipOutputStream extends GZIPOutputStream {
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  SyncFlushGzipOutputStream(OutputStream out) throws IOException {
+    super(out, BUFFER_SIZE, true);
+  }
+
+  SyncFlushGzipOutputStream(OutputStream out, int compressionLevel) throws IOException {
+    this(out);
+    this.def.setLevel(compressionLevel);
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.anarres.lzo.LzoOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * LZO stream that cuts a block when it is flushed and flushes the stream it wraps. {@link LzoOutputStream} compresses
+ * the pending data on flush but does not pass the flush on, which leaves the block in any buffer downstream.
+ */
+class SyncFlushLzoOutputStream extends LzoOutputStream {
+  SyncFlushLzoOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    super.flush();
+    this.out.flush();
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+/**
+ * Primitive value that is written to a DATE, TIME, TIMESTAMP, TIMESTAMPTZ or INTERVAL column. Columns declared with
+ * an input accept long and int values, which are converted to the stored value with plain arithmetic.
+ */
+public enum TemporalInput {
+  /**
+   * Microseconds since 1970-01-01T00:00:00Z for TIMESTAMP and TIMESTAMPTZ columns.
+   */
+  EPOCH_MICROS,
+  /**
+   * Milliseconds since 1970-01-01T00:00:00Z for TIMESTAMP and TIMESTAMPTZ columns.
+   */
+  EPOCH_MILLIS,
+  /**
+   * Days since 1970-01-01 for DATE columns.
+   */
+  EPOCH_DAY,
+  /**
+   * Microseconds since midnight for TIME columns.
+   */
+  MICROS_OF_DAY,
+  /**
+   * Microseconds for INTERVAL columns.
+   */
+  MICROS;
+
+  /**
+   * Method is used to determine if the input can be written to a type of column.
+   *
+   * @param type type of the column.
+   * @return true if the input can be written to the column.
+   */
+  public boolean supports(VerticaColumnType type) {
+    switch (this) {
+      case EPOCH_MICROS:
+      case EPOCH_MILLIS:
+        return VerticaColumnType.TIMESTAMP == type || VerticaColumnType.TIMESTAMPTZ == type;
+      case EPOCH_DAY:
+        return VerticaColumnType.DATE == type;
+      case MICROS_OF_DAY:
+        return VerticaColumnType.TIME == type;
+      case MICROS:
+        return VerticaColumnType.INTERVAL == type;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class is used to write a range of an array that already contains UTF-8 to a VARCHAR or CHAR column. The bytes
+ * are copied to the row without being decoded. The array is not copied so it must not be modified until the row
+ * is written.
+ */
+public final class Utf8Slice {
+  final byte[] array;
+  final int offset;
+  final int length;
+
+  private Utf8Slice(byte[] array, int offset, int length) {
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Method is used to create a slice for an entire array. The bytes are not validated.
+   *
+   * @param array array containing UTF-8.
+   * @return slice for the array.
+   */
+  public static Utf8Slice of(byte[] array) {
+    Preconditions.checkNotNull(array, "array cannot be null.");
+    return new Utf8Slice(array, 0, array.length);
+  }
+
+  /**
+   * Method is used to create a slice for a range of an array. The bytes are not validated.
+   *
+   * @param array  array containing UTF-8.
+   * @param offset offset of the value in the array.
+   * @param length length of the value in bytes.
+   * @return slice for the range.
+   */
+  public static Utf8Slice of(byte[] array, int offset, int length) {
+    Preconditions.checkNotNull(array, "array cannot be null.");
+    Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+    return new Utf8Slice(array, offset, length);
+  }
+
+  /**
+   * Method is used to create a slice for an entire array after checking that it contains well formed UTF-8.
+   *
+   * @param array array containing UTF-8.
+   * @return slice for the array.
+   * @exception IllegalArgumentException Exception thrown if the array does not contain well formed UTF-8.
+   */
+  public static Utf8Slice validated(byte[] array) {
+    Preconditions.checkNotNull(array, "array cannot be null.");
+    return validated(array, 0, array.length);
+  }
+
+  /**
+   * Method is used to create a slice for a range of an array after checking that it contains well formed UTF-8.
+   * Overlong encodings, surrogates and code points above U+10FFFF are rejected.
+   *
+   * @param array  array containing UTF-8.
+   * @param offset offset of the value in the array.
+   * @param length length of the value in bytes.
+   * @return slice for the range.
+   * @exception IllegalArgumentException Exception thrown if the range does not contain well formed UTF-8.
+   */
+  public static Utf8Slice validated(byte[] array, int offset, int length) {
+    final Utf8Slice result = of(array, offset, length);
+    final int index = invalidIndex(array, offset, length);
+    if (index > -1) {
+      throw new IllegalArgumentException(
+          String.format("Malformed UTF-8 at offset %s of the array.", index)
+      );
+    }
+    return result;
+  }
+
+  /**
+   * Method is used to find the first byte of a malformed sequence.
+   *
+   * @param array  array to check.
+   * @param offset offset of the range in the array.
+   * @param length length of the range in bytes.
+   * @return offset of the first malformed sequence or -1 if the range is well formed.
+   */
+  static int invalidIndex(byte[] array, int offset, int length) {
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      final int lead = array[i] & 0xFF;
+      if (lead < 0x80) {
+        i++;
+        continue;
+      }
+
+      final int continuation;
+      int min = 0x80;
+      int max = 0xBF;
+      if (lead >= 0xC2 && lead <= 0xDF) {
+        continuation = 1;
+      } else if (lead >= 0xE0 && lead <= 0xEF) {
+        continuation = 2;
+        if (0xE0 == lead) {
+          min = 0xA0;
+        } else if (0xED == lead) {
+          max = 0x9F;
+        }
+      } else if (lead >= 0xF0 && lead <= 0xF4) {
+        continuation = 3;
+        if (0xF0 == lead) {
+          min = 0x90;
+        } else if (0xF4 == lead) {
+          max = 0x8F;
+        }
+      } else {
+        return i;
+      }
+
+      if (end - i <= continuation) {
+        return i;
+      }
+      final int second = array[i + 1] & 0xFF;
+      if (second < min || second > max) {
+        return i;
+      }
+      for (int j = 2; j <= continuation; j++) {
+        if ((array[i + j] & 0xC0) != 0x80) {
+          return i;
+        }
+      }
+      i += continuation + 1;
+    }
+    return -1;
+  }
+
+  /**
+   * The array containing the value.
+   *
+   * @return The array containing the value.
+   */
+  public byte[] array() {
+    return array;
+  }
+
+  /**
+   * The offset of the value in the array.
+   *
+   * @return The offset of the value in the array.
+   */
+  public int offset() {
+    return offset;
+  }
+
+  /**
+   * The length of the value in bytes.
+   *
+   * @return The length of the value in bytes.
+   */
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return new String(this.array, this.offset, this.length, StandardCharsets.UTF_8);
+  }
+}
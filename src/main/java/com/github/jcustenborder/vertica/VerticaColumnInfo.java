@@ -18,12 +18,15 @@ package com.github.jcustenborder.vertica;
 import com.github.jcustenborder.vertica.binary.Encoder;
 import com.github.jcustenborder.vertica.binary.Encoders;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Primitives;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Calendar;
+import java.util.List;
 
 //https://my.vertica.com/docs/8.0.x/HTML/index.htm#Authoring/AdministratorsGuide/BinaryFilesAppendix/CreatingNativeBinaryFormatFiles.htm
 
@@ -32,13 +35,37 @@ import java.util.Calendar;
  */
 public class VerticaColumnInfo {
   private static final Logger log = LoggerFactory.getLogger(VerticaColumnInfo.class);
+  /**
+   * Lookup tables and stateless encoders shared by every column. Each column copies it for the encoders that keep
+   * state.
+   */
+  private static final Encoders ENCODERS = new Encoders();
   final String name;
   final VerticaColumnType type;
   final int size;
   final int precision;
   final int scale;
   final Calendar calendar;
-  final Encoders encoders = new Encoders();
+  final Encoders encoders;
+  final Class<?> inputType;
+  final Encoder encoder;
+  final EncodedValueCache valueCache;
+  final TemporalInput temporalInput;
+  CachedEncoder cachedEncoder;
+
+  /**
+   * Encoder that was resolved for the last type written to the column. The type and encoder are replaced together
+   * so a reader never sees the type of one value with the encoder of another.
+   */
+  static final class CachedEncoder {
+    final Class<?> inputType;
+    final Encoder encoder;
+
+    CachedEncoder(Class<?> inputType, Encoder encoder) {
+      this.inputType = inputType;
+      this.encoder = encoder;
+    }
+  }
 
   /**
    * Name of the column.
@@ -67,6 +94,24 @@ public class VerticaColumnInfo {
     return size;
   }
 
+  /**
+   * The java type that is written to the column. null if the type was not declared.
+   *
+   * @return The java type that is written to the column.
+   */
+  public Class<?> inputType() {
+    return inputType;
+  }
+
+  /**
+   * The primitive temporal value that is written to the column. null if the input was not declared.
+   *
+   * @return The primitive temporal value that is written to the column.
+   */
+  public TemporalInput temporalInput() {
+    return temporalInput;
+  }
+
   /**
    * The precision of the column.
    *
@@ -85,7 +130,41 @@ public class VerticaColumnInfo {
     return scale;
   }
 
+  /**
+   * The number of values that were written from the encoded value cache. 0 if the cache is not enabled.
+   *
+   * @return The number of values that were written from the encoded value cache.
+   */
+  public long cacheHits() {
+    return null != this.valueCache ? this.valueCache.hits() : 0L;
+  }
+
+  /**
+   * The number of values that were not found in the encoded value cache. 0 if the cache is not enabled.
+   *
+   * @return The number of values that were not found in the encoded value cache.
+   */
+  public long cacheMisses() {
+    return null != this.valueCache ? this.valueCache.misses() : 0L;
+  }
+
   VerticaColumnInfo(String name, VerticaColumnType type, int size, int precision, int scale) {
+    this(name, type, size, precision, scale, null);
+  }
+
+  VerticaColumnInfo(String name, VerticaColumnType type, int size, int precision, int scale, Class<?> inputType) {
+    this(name, type, size, precision, scale, inputType, null);
+  }
+
+  VerticaColumnInfo(String name, VerticaColumnType type, int size, int precision, int scale, Class<?> inputType, EncodedValueCache valueCache) {
+    this(name, type, size, precision, scale, inputType, valueCache, null);
+  }
+
+  VerticaColumnInfo(String name, VerticaColumnType type, TemporalInput temporalInput) {
+    this(name, type, sizeForType(type), -1, -1, null, null, temporalInput);
+  }
+
+  VerticaColumnInfo(String name, VerticaColumnType type, int size, int precision, int scale, Class<?> inputType, EncodedValueCache valueCache, TemporalInput temporalInput) {
     Preconditions.checkNotNull(name, "name cannot be null.");
     this.name = name;
     this.type = type;
@@ -101,6 +180,87 @@ public class VerticaColumnInfo {
     this.precision = precision;
     this.scale = scale;
     this.calendar = Calendar.getInstance(Constants.UTC_TIMEZONE);
+    this.encoders = ENCODERS.copy();
+
+    if (null != inputType) {
+      this.inputType = Primitives.wrap(inputType);
+      this.encoder = this.encoders.get(this.type, this.inputType);
+      Preconditions.checkState(
+          null != this.encoder,
+          "Encoder for %s:%s was not found for column '%s'.",
+          this.type,
+          this.inputType.getName(),
+          this.name
+      );
+    } else {
+      this.inputType = null;
+      this.encoder = null;
+    }
+
+    if (null != valueCache) {
+      Preconditions.checkState(
+          VerticaColumnType.VARCHAR == this.type || VerticaColumnType.CHAR == this.type,
+          "Encoded value cache is not supported for column '%s' of type %s.",
+          this.name,
+          this.type
+      );
+    }
+    this.valueCache = valueCache;
+
+    if (null != temporalInput) {
+      Preconditions.checkState(
+          temporalInput.supports(this.type),
+          "%s is not supported for column '%s' of type %s.",
+          temporalInput,
+          this.name,
+          this.type
+      );
+    }
+    this.temporalInput = temporalInput;
+  }
+
+  /**
+   * Creates a copy of a column with its own copies of the encoders that keep state. The copy has its own encoded value
+   * cache that shares the counters of the original.
+   *
+   * @param columnInfo column to copy.
+   */
+  VerticaColumnInfo(VerticaColumnInfo columnInfo) {
+    this(columnInfo, null != columnInfo.valueCache ? columnInfo.valueCache.copy() : null);
+  }
+
+  /**
+   * Creates a copy of a column with the supplied encoded value cache.
+   *
+   * @param columnInfo column to copy.
+   * @param valueCache cache to use for the copy. null to disable the cache.
+   */
+  VerticaColumnInfo(VerticaColumnInfo columnInfo, EncodedValueCache valueCache) {
+    this(
+        columnInfo.name,
+        columnInfo.type,
+        columnInfo.size,
+        columnInfo.precision,
+        columnInfo.scale,
+        columnInfo.inputType,
+        valueCache,
+        columnInfo.temporalInput
+    );
+  }
+
+  /**
+   * Method is used to copy the columns for a writer. Columns cache the encoder of the last type they encoded, so
+   * each writer needs its own copies to be used from a different thread than other writers of the builder.
+   *
+   * @param columns columns to copy.
+   * @return copies of the columns.
+   */
+  static List<VerticaColumnInfo> copyOf(List<VerticaColumnInfo> columns) {
+    final ImmutableList.Builder<VerticaColumnInfo> copies = ImmutableList.builder();
+    for (VerticaColumnInfo columnInfo : columns) {
+      copies.add(new VerticaColumnInfo(columnInfo));
+    }
+    return copies.build();
   }
 
   VerticaColumnInfo(String name, VerticaColumnType type) {
@@ -168,17 +328,213 @@ public class VerticaColumnInfo {
       return;
     }
 
-    Encoder encoder = this.encoders.get(this.type, value);
-    if (null == encoder) {
-      throw new UnsupportedOperationException(
-          String.format(
-              "Encoder for %s:%s was found",
-              this.type,
-              value.getClass().getName()
-          )
-      );
+    if (null != this.temporalInput && (value instanceof Long || value instanceof Integer)) {
+      encodeTemporal(buffer, ((Number) value).longValue());
+      return;
+    }
+
+    final boolean cacheable = null != this.valueCache && EncodedValueCache.cacheable(value);
+    if (cacheable && this.valueCache.write(buffer, value)) {
+      return;
+    }
+
+    final int start = buffer.position();
+    final Class<?> valueType = value.getClass();
+    final CachedEncoder cached = this.cachedEncoder;
+    final Encoder encoder;
+    if (valueType == this.inputType) {
+      encoder = this.encoder;
+    } else if (null != cached && valueType == cached.inputType) {
+      encoder = cached.encoder;
+    } else {
+      encoder = this.encoders.get(this.type, valueType);
+      if (null == encoder) {
+        throw new UnsupportedOperationException(
+            String.format(
+                "Encoder for %s:%s was not found",
+                this.type,
+                valueType.getName()
+            )
+        );
+      }
+      log.trace("encode() - Caching {} for {}", encoder, valueType);
+      this.cachedEncoder = new CachedEncoder(valueType, encoder);
     }
     encoder.encode(buffer, value, this.name, this.size, this.precision, this.scale);
+    if (cacheable) {
+      this.valueCache.add(value, buffer, start);
+    }
+  }
+
+  /**
+   * Method is used to encode a primitive long value for INTEGER, INTERVAL and NUMERIC columns, or columns declared
+   * with a {@link TemporalInput}.
+   *
+   * @param buffer buffer to write to.
+   * @param value  value to write. INTERVAL values are in microseconds. NUMERIC values are the whole value and are
+   *               scaled to the scale of the column.
+   */
+  void encodeLong(ByteBuffer buffer, long value) {
+    if (null != this.temporalInput) {
+      encodeTemporal(buffer, value);
+      return;
+    }
+    if (VerticaColumnType.NUMERIC == this.type) {
+      Encoders.putNumeric(buffer, value, this.name, this.size, this.precision, this.scale);
+      return;
+    }
+    if (VerticaColumnType.INTERVAL == this.type) {
+      buffer.putLong(value);
+      return;
+    }
+
+    switch (this.size) {
+      case 1:
+        checkRange(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        buffer.put((byte) value);
+        break;
+      case 2:
+        checkRange(value, Short.MIN_VALUE, Short.MAX_VALUE);
+        buffer.putShort((short) value);
+        break;
+      case 4:
+        checkRange(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        buffer.putInt((int) value);
+        break;
+      case 8:
+        buffer.putLong(value);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Size of %s is not supported for column '%s'.", this.size, this.name)
+        );
+    }
+  }
+
+  private void checkRange(long value, long min, long max) {
+    if (value < min || value > max) {
+      throw new IllegalArgumentException(
+          String.format("Value %s for column '%s' does not fit in %s byte(s).", value, this.name, this.size)
+      );
+    }
+  }
+
+  /**
+   * Method is used to encode the number of days since 1970-01-01 for DATE columns.
+   *
+   * @param buffer   buffer to write to.
+   * @param epochDay days since 1970-01-01.
+   */
+  void encodeEpochDay(ByteBuffer buffer, long epochDay) {
+    buffer.putLong(epochDay - Constants.THEIR_EPOCH_DAY);
+  }
+
+  /**
+   * Method is used to encode the number of microseconds since 1970-01-01T00:00:00Z for TIMESTAMP and TIMESTAMPTZ
+   * columns.
+   *
+   * @param buffer      buffer to write to.
+   * @param epochMicros microseconds since 1970-01-01T00:00:00Z.
+   */
+  void encodeEpochMicros(ByteBuffer buffer, long epochMicros) {
+    buffer.putLong(epochMicros - Constants.THEIR_EPOCH_MICRO);
+  }
+
+  /**
+   * Method is used to encode the number of microseconds since midnight for TIME columns.
+   *
+   * @param buffer      buffer to write to.
+   * @param microsOfDay microseconds since midnight.
+   */
+  void encodeMicrosOfDay(ByteBuffer buffer, long microsOfDay) {
+    buffer.putLong(microsOfDay);
+  }
+
+  /**
+   * Method is used to encode a primitive value for a column declared with a {@link TemporalInput}.
+   *
+   * @param buffer buffer to write to.
+   * @param value  value to write in the unit of the input.
+   */
+  void encodeTemporal(ByteBuffer buffer, long value) {
+    switch (this.temporalInput) {
+      case EPOCH_MICROS:
+        encodeEpochMicros(buffer, value);
+        break;
+      case EPOCH_MILLIS:
+        encodeEpochMicros(buffer, Math.multiplyExact(value, 1000L));
+        break;
+      case EPOCH_DAY:
+        encodeEpochDay(buffer, value);
+        break;
+      case MICROS_OF_DAY:
+        encodeMicrosOfDay(buffer, value);
+        break;
+      case MICROS:
+        buffer.putLong(value);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("%s is not supported for column '%s'.", this.temporalInput, this.name)
+        );
+    }
   }
 
+  /**
+   * Method is used to encode a primitive double value for FLOAT columns.
+   *
+   * @param buffer buffer to write to.
+   * @param value  value to write.
+   */
+  void encodeDouble(ByteBuffer buffer, double value) {
+    buffer.putDouble(value);
+  }
+
+  /**
+   * Method is used to encode a primitive boolean value for BOOLEAN columns.
+   *
+   * @param buffer buffer to write to.
+   * @param value  value to write.
+   */
+  void encodeBoolean(ByteBuffer buffer, boolean value) {
+    buffer.put(value ? Constants.TRUE : Constants.FALSE);
+  }
+
+  /**
+   * Method is used to encode a range of bytes for CHAR, VARCHAR, BINARY, and VARBINARY columns. Variable length
+   * columns are prefixed with the length, fixed length columns are padded to the size of the column.
+   *
+   * @param buffer buffer to write to.
+   * @param value  array containing the value.
+   * @param offset offset of the value in the array.
+   * @param length length of the value.
+   */
+  void encodeBytes(ByteBuffer buffer, byte[] value, int offset, int length) {
+    switch (this.type) {
+      case VARCHAR:
+      case VARBINARY:
+        buffer.putInt(length);
+        buffer.put(value, offset, length);
+        break;
+      case CHAR:
+      case BINARY:
+        if (length > this.size) {
+          throw new IllegalStateException(
+              String.format(
+                  "Encoded value for '%s' is %s byte(s) but the column is only %s byte(s).",
+                  this.name,
+                  length,
+                  this.size
+              )
+          );
+        }
+        buffer.put(value, offset, length);
+        Encoders.pad(buffer, this.size - length);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Column '%s' of type %s does not accept bytes.", this.name, this.type)
+        );
+    }
+  }
 }
@@ -22,5 +22,6 @@ public enum VerticaCompressionType {
   UNCOMPRESSED,
   BZIP,
   GZIP,
-  LZO
+  LZO,
+  ZSTD
 }
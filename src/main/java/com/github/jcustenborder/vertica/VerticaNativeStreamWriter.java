@@ -16,108 +16,447 @@
 package com.github.jcustenborder.vertica;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.common.io.BaseEncoding;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 class VerticaNativeStreamWriter implements VerticaStreamWriter {
   private static final Logger log = LoggerFactory.getLogger(VerticaNativeStreamWriter.class);
   final OutputStream outputStream;
+  final boolean closeStream;
   final WritableByteChannel channel;
-  final ByteBuffer rowBuffer;
-  final ByteBuffer rowHeaderBuffer;
+  final RowBuffer rowBuffer;
+  final ByteBuffer blockBuffer;
+  final BufferAllocator bufferAllocator;
   final List<VerticaColumnInfo> columns;
+  final RowEncoder rowEncoder;
   final int nullMarkerBufferSize;
+  final int rowHeaderSize;
+  final long flushRows;
+  final long flushBytes;
+  final long flushIntervalNanos;
+  final boolean flushPolicy;
+  final RowMetrics metrics;
+  final WriterEvents events;
+  boolean closed;
+  long bytesWritten;
+  long rowsSinceFlush;
+  long bytesSinceFlush;
+  long lastFlush;
+  static final int ROW_LENGTH_SIZE = 4;
   static final byte[] HEADER = BaseEncoding.base16().decode("4E41544956450AFF0D0A00");
 
   VerticaNativeStreamWriter(VerticaStreamWriterBuilder builder, OutputStream outputStream) throws IOException {
+    this(builder, outputStream, false);
+  }
+
+  /**
+   * Creates a writer.
+   *
+   * @param builder      builder with the settings for the writer.
+   * @param outputStream stream to write to. Streams that are also a {@link WritableByteChannel} are written to
+   *                     directly.
+   * @param closeStream  true if the stream is owned by the writer and is closed with it.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  VerticaNativeStreamWriter(VerticaStreamWriterBuilder builder, OutputStream outputStream, boolean closeStream) throws IOException {
+    this(builder, outputStream, closeStream, true);
+  }
+
+  /**
+   * Creates a writer.
+   *
+   * @param builder      builder with the settings for the writer.
+   * @param outputStream stream to write to. Streams that are also a {@link WritableByteChannel} are written to
+   *                     directly.
+   * @param closeStream  true if the stream is owned by the writer and is closed with it.
+   * @param encodeRows   false if the writer only receives rows that were encoded elsewhere through
+   *                     {@link #writeEncoded(ByteBuffer)}. No row buffer or row encoder is created.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  VerticaNativeStreamWriter(VerticaStreamWriterBuilder builder, OutputStream outputStream, boolean closeStream, boolean encodeRows) throws IOException {
+    this(builder, outputStream, closeStream, encodeRows, VerticaColumnInfo.copyOf(builder.columnInfos));
+  }
+
+  /**
+   * Creates a writer that encodes with columns owned by the caller.
+   *
+   * @param builder      builder with the settings for the writer.
+   * @param outputStream stream to write to. Streams that are also a {@link WritableByteChannel} are written to
+   *                     directly.
+   * @param closeStream  true if the stream is owned by the writer and is closed with it.
+   * @param encodeRows   false if the writer only receives rows that were encoded elsewhere.
+   * @param columns      copies of the columns of the builder. They must not be used from another thread while the
+   *                     writer is open.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  VerticaNativeStreamWriter(VerticaStreamWriterBuilder builder, OutputStream outputStream, boolean closeStream, boolean encodeRows, List<VerticaColumnInfo> columns) throws IOException {
     this.outputStream = outputStream;
-    this.channel = Channels.newChannel(this.outputStream);
-    this.columns = ImmutableList.copyOf(builder.columnInfos);
-    log.trace("ctor() - Allocating row buffer of {} bytes.", builder.rowBufferSize);
-    this.rowBuffer = ByteBuffer.allocate(builder.rowBufferSize);
-    this.rowBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    this.closeStream = closeStream;
+    this.flushRows = builder.flushRows;
+    this.flushBytes = builder.flushBytes;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.flushInterval);
+    this.flushPolicy = this.flushRows > 0 || this.flushBytes > 0 || this.flushIntervalNanos > 0;
+    this.lastFlush = System.nanoTime();
+    if (outputStream instanceof WritableByteChannel) {
+      this.channel = (WritableByteChannel) outputStream;
+    } else {
+      this.channel = Channels.newChannel(this.outputStream);
+    }
+    this.columns = columns;
+    this.metrics = RowMetrics.create(builder, this.columns);
+    this.events = WriterEvents.create(builder);
+    this.bufferAllocator = builder.bufferAllocator;
+    if (encodeRows) {
+      this.rowEncoder = new InterpretedRowEncoder(this.columns);
+      log.trace("ctor() - Allocating row buffer of {} bytes.", builder.rowBufferSize);
+      this.rowBuffer = new RowBuffer(builder, this.columns);
+    } else {
+      this.rowEncoder = null;
+      this.rowBuffer = null;
+    }
+    final ByteBuffer header = ByteBuffer.allocate(HEADER.length + 9 + this.columns.size() * 4)
+        .order(ByteOrder.LITTLE_ENDIAN);
 
     this.nullMarkerBufferSize = (int) (Math.ceil(this.columns.size() / 8D));
 
-    final int rowHeaderSize = this.nullMarkerBufferSize + 4;
-    log.trace("ctor() - Allocating {} byte(s) for row header.", rowHeaderSize);
-    this.rowHeaderBuffer = ByteBuffer.allocate(rowHeaderSize).order(ByteOrder.LITTLE_ENDIAN);
+    this.rowHeaderSize = rowHeaderSize(this.columns.size());
+    log.trace("ctor() - Reserving {} byte(s) for row header.", this.rowHeaderSize);
 
     log.trace("ctor() - Writing header");
-    this.rowBuffer.put(HEADER);
+    header.put(HEADER);
 
     final int headerLength = (this.columns.size() * 4) + 5;
     log.trace("ctor() - Header length {} byte(s).", headerLength);
-    this.rowBuffer.putInt(headerLength);
-    this.rowBuffer.putShort((short) 1);
-    this.rowBuffer.put(Constants.ZERO);
-    this.rowBuffer.putShort((short) this.columns.size());
+    header.putInt(headerLength);
+    header.putShort((short) 1);
+    header.put(Constants.ZERO);
+    header.putShort((short) this.columns.size());
 
 
     for (VerticaColumnInfo columnInfo : this.columns) {
       log.trace("ctor() - Setting length for '{}' to {} byte(s).", columnInfo.name, columnInfo.size);
-      this.rowBuffer.putInt(columnInfo.size);
+      header.putInt(columnInfo.size);
     }
 
-    this.rowBuffer.flip();
-    log.trace("ctor() - Writing {} byte(s) for header.", this.rowBuffer.remaining());
-    this.channel.write(this.rowBuffer);
+    header.flip();
+    this.bytesWritten = header.remaining();
+
+    if (builder.blockSize > 0) {
+      log.trace("ctor() - Allocating block buffer of {} bytes.", builder.blockSize);
+      this.blockBuffer = this.bufferAllocator.allocate(builder.blockSize).order(ByteOrder.LITTLE_ENDIAN);
+      log.trace("ctor() - Buffering {} byte(s) for header.", header.remaining());
+      this.blockBuffer.put(header);
+    } else {
+      this.blockBuffer = null;
+      log.trace("ctor() - Writing {} byte(s) for header.", header.remaining());
+      this.channel.write(header);
+    }
+  }
+
+  /**
+   * Method is used to write the contents of the block buffer to the channel.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void writeBlock() throws IOException {
+    if (null == this.blockBuffer || 0 == this.blockBuffer.position()) {
+      return;
+    }
+    this.blockBuffer.flip();
+    log.trace("writeBlock() - writing {} byte(s) for block.", this.blockBuffer.remaining());
+    write(this.blockBuffer);
+    this.blockBuffer.clear();
   }
 
+  /**
+   * Method is used to write the block buffer and flush the stream.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+    log.trace("flush() - Flushing after {} row(s) and {} byte(s).", this.rowsSinceFlush, this.bytesSinceFlush);
+    final Object event = this.events.beginFlush();
+    writeBlock();
+    this.outputStream.flush();
+    this.events.endFlush(event, this.rowsSinceFlush, this.bytesSinceFlush);
+    this.rowsSinceFlush = 0;
+    this.bytesSinceFlush = 0;
+    this.lastFlush = System.nanoTime();
+    if (null != this.metrics) {
+      this.metrics.listener.flushed();
+    }
+  }
+
+
+  /**
+   * Method is called after rows have been written to apply the flush policy.
+   *
+   * @param rows  number of rows that were written.
+   * @param bytes number of bytes that were written.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void rowsWritten(long rows, long bytes) throws IOException {
+    if (null != this.metrics) {
+      this.metrics.listener.rowsWritten(rows, bytes);
+    }
+    this.rowsSinceFlush += rows;
+    this.bytesSinceFlush += bytes;
+    if (!this.flushPolicy) {
+      return;
+    }
+    if ((this.flushRows > 0 && this.rowsSinceFlush >= this.flushRows)
+        || (this.flushBytes > 0 && this.bytesSinceFlush >= this.flushBytes)
+        || (this.flushIntervalNanos > 0 && System.nanoTime() - this.lastFlush >= this.flushIntervalNanos)) {
+      flush();
+    }
+  }
+
+  /**
+   * Method is used to write the block buffer and close the stream if it is owned by the writer, which writes the
+   * trailer of a compressed stream. Streams supplied by the caller are flushed but not closed.
+   *
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
   @Override
   public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    try {
+      writeBlock();
+      if (this.closeStream) {
+        log.trace("close() - Closing stream.");
+        this.outputStream.close();
+      } else {
+        this.outputStream.flush();
+      }
+    } finally {
+      this.closed = true;
+      log.trace("close() - Releasing buffers.");
+      if (null != this.rowBuffer) {
+        this.rowBuffer.release();
+      }
+      if (null != this.blockBuffer) {
+        this.bufferAllocator.release(this.blockBuffer);
+      }
+    }
+  }
+
+  /**
+   * Method is used to flag a column as null in the null marker bytes of the row header.
+   *
+   * @param buffer buffer containing the row header at position 0.
+   * @param index  index of the column that is null.
+   */
+  static void nullMarker(ByteBuffer buffer, int index) {
+    final int bufferIndex = ROW_LENGTH_SIZE + index / 8;
+    log.trace("nullMarker() - Setting bit {}. bufIdx={}", index, bufferIndex);
+    // order from left to right
+    // e.g. first bit from left is set to 1 if first column value is null
+    buffer.put(bufferIndex, (byte) (buffer.get(bufferIndex) | (1 << 7 - index % 8)));
+  }
+
+  static int rowHeaderSize(int columnCount) {
+    return (int) (Math.ceil(columnCount / 8D)) + ROW_LENGTH_SIZE;
+  }
 
+  /**
+   * Method is used to reset a row buffer and reserve the row header.
+   *
+   * @param buffer        buffer to reset.
+   * @param rowHeaderSize size of the row header.
+   */
+  static void startRow(ByteBuffer buffer, int rowHeaderSize) {
+    buffer.clear();
+    for (int i = ROW_LENGTH_SIZE; i < rowHeaderSize; i++) {
+      buffer.put(i, Constants.ZERO);
+    }
+    buffer.position(rowHeaderSize);
   }
 
-  static byte[] nullMarkers(Object[] row, int size) {
-    final byte[] buffer = new byte[size];
-    log.trace("nullMarkers() - called with size {}", size);
+  /**
+   * Method is used to set the length of the row in the row header and flip the buffer so the row can be read.
+   *
+   * @param buffer        buffer containing the row.
+   * @param rowHeaderSize size of the row header.
+   */
+  static void endRow(ByteBuffer buffer, int rowHeaderSize) {
+    final int rowLength = buffer.position() - rowHeaderSize;
+    log.trace("endRow() - wrote {} byte(s)", rowLength);
+    buffer.putInt(0, rowLength);
+    buffer.flip();
+  }
 
-    for (int i = 0; i < row.length; i++) {
-      boolean isNull = null == row[i];
-      log.trace("nullMarkers() - Setting bit {} to {}. bufIdx={}", i, isNull, i / 8);
-      if (isNull) {
-        // order from left to right
-        // e.g. first bit from left is set to 1 if first column value is null
-        buffer[i / 8] |= (1 << 7 - i % 8);
+  /**
+   * Method is used to reset the row buffer and reserve the row header.
+   *
+   * @return buffer to encode the row into.
+   */
+  ByteBuffer startRow() {
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+    Preconditions.checkState(null != this.rowBuffer, "Writer only accepts rows that are already encoded.");
+    return this.rowBuffer.start(this.rowHeaderSize);
+  }
+
+  /**
+   * Method is used to set the length of the row in the row header and write the row.
+   *
+   * @return size of the row in bytes.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  int finishRow() throws IOException {
+    final ByteBuffer buffer = this.rowBuffer.buffer();
+    endRow(buffer, this.rowHeaderSize);
+    if (null != this.metrics) {
+      this.metrics.nulls(buffer, 0, this.rowHeaderSize);
+    }
+    final int rowSize = buffer.remaining();
+    writeEncoded(buffer);
+    this.rowBuffer.written(rowSize);
+    rowsWritten(1, rowSize);
+    return rowSize;
+  }
+
+  /**
+   * Method is used to write one or more rows that are already encoded. The rows are added to the block buffer if
+   * one is configured.
+   *
+   * @param buffer buffer containing the encoded rows.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void writeEncoded(ByteBuffer buffer) throws IOException {
+    this.bytesWritten += buffer.remaining();
+    if (null != this.blockBuffer) {
+      if (this.blockBuffer.remaining() < buffer.remaining()) {
+        writeBlock();
       }
+      if (this.blockBuffer.remaining() >= buffer.remaining()) {
+        log.trace("writeEncoded() - buffering {} byte(s).", buffer.remaining());
+        this.blockBuffer.put(buffer);
+        return;
+      }
+      log.trace("writeEncoded() - {} byte(s) is larger than the block buffer. Writing directly.", buffer.remaining());
     }
 
-    return buffer;
+    log.trace("writeEncoded() - writing {} byte(s).", buffer.remaining());
+    write(buffer);
   }
 
+  /**
+   * Method is used to write the remaining bytes of a buffer to the channel.
+   *
+   * @param buffer buffer to write.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void write(ByteBuffer buffer) throws IOException {
+    final long bytes = buffer.remaining();
+    final Object event = this.events.beginWrite();
+    final long start = null == this.metrics ? 0L : System.nanoTime();
+    while (buffer.hasRemaining()) {
+      this.channel.write(buffer);
+    }
+    if (null != this.metrics) {
+      this.metrics.listener.bytesWritten(bytes, System.nanoTime() - start);
+    }
+    this.events.endWrite(event, bytes);
+  }
+
+
   @Override
   public void write(Object[] row) throws IOException {
     Preconditions.checkNotNull(row, "row cannot be null.");
     Preconditions.checkState(this.columns.size() == row.length, "The length of the row array must be equal to the number of columns");
 
-    this.rowBuffer.clear();
-    this.rowHeaderBuffer.clear();
-
-    for (int i = 0; i < row.length; i++) {
-      VerticaColumnInfo columnInfo = this.columns.get(i);
-      log.trace("write() - Writing value for {} - {}", i, columnInfo.name);
-      columnInfo.encode(this.rowBuffer, row[i]);
-    }
-    log.trace("write() - wrote {} byte(s)", this.rowBuffer.position());
-    byte[] nullMarker = nullMarkers(row, this.nullMarkerBufferSize);
-    this.rowBuffer.flip();
-    this.rowHeaderBuffer.putInt(this.rowBuffer.remaining());
-    this.rowHeaderBuffer.put(nullMarker);
-    this.rowHeaderBuffer.flip();
-    log.trace("write() - writing {} byte(s) for row header.", this.rowHeaderBuffer.remaining());
-    this.channel.write(this.rowHeaderBuffer);
-    log.trace("write() - writing {} byte(s) for row.", this.rowBuffer.remaining());
-    this.channel.write(this.rowBuffer);
+    final Object event = this.events.beginEncode();
+    while (true) {
+      final ByteBuffer buffer = startRow();
+      try {
+        if (null != this.metrics && this.metrics.sample()) {
+          this.metrics.encode(buffer, row);
+        } else {
+          this.rowEncoder.encode(buffer, row);
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        this.rowBuffer.grow(e);
+      }
+    }
+    this.events.endEncode(event, 1, finishRow());
+  }
+
+  @Override
+  public VerticaRow newRow() {
+    return new VerticaRow(this.columns);
+  }
+
+  @Override
+  public void commit(VerticaRow row) throws IOException {
+    VerticaRow.checkRow(row, this.columns);
+
+    final Object event = this.events.beginEncode();
+    while (true) {
+      final ByteBuffer buffer = startRow();
+      try {
+        if (null != this.metrics && this.metrics.sample()) {
+          this.metrics.encode(buffer, row);
+        } else {
+          row.encode(buffer);
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        this.rowBuffer.grow(e);
+      }
+    }
+    this.events.endEncode(event, 1, finishRow());
+  }
+
+  @Override
+  public void writeBatch(ColumnBatch batch) throws IOException {
+    Preconditions.checkNotNull(batch, "batch cannot be null.");
+    batch.validate(this.columns);
+
+    final Object event = this.events.beginEncode();
+    final long bytesWritten = this.bytesWritten;
+    for (int row = 0; row < batch.rowCount; row++) {
+      writeBatchRow(batch, row);
+    }
+    this.events.endEncode(event, batch.rowCount, this.bytesWritten - bytesWritten);
+  }
+
+  /**
+   * Method is used to write a single row of a batch that has already been validated.
+   *
+   * @param batch batch containing the values for each column.
+   * @param row   index of the row in the batch.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  void writeBatchRow(ColumnBatch batch, int row) throws IOException {
+    while (true) {
+      final ByteBuffer buffer = startRow();
+      try {
+        if (null != this.metrics && this.metrics.sample()) {
+          this.metrics.encode(buffer, batch, row);
+        } else {
+          batch.encode(buffer, this.columns, row);
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        this.rowBuffer.grow(e);
+      }
+    }
+    finishRow();
   }
 
   @Override
@@ -0,0 +1,343 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable row that is used to write primitive values to a {@link VerticaStreamWriter} without boxing them. A row
+ * is obtained from {@link VerticaStreamWriter#newRow()}, populated with the typed setters and written with
+ * {@link VerticaStreamWriter#commit(VerticaRow)}. Values are retained after a commit so only the columns that
+ * change need to be set again. Columns that have never been set are written as null.
+ */
+public final class VerticaRow {
+  static final byte KIND_NULL = 0;
+  static final byte KIND_LONG = 1;
+  static final byte KIND_DOUBLE = 2;
+  static final byte KIND_BOOLEAN = 3;
+  static final byte KIND_BYTES = 4;
+  static final byte KIND_OBJECT = 5;
+
+  final List<VerticaColumnInfo> columns;
+  final byte[] kinds;
+  final long[] longs;
+  final double[] doubles;
+  final Object[] objects;
+  final int[] offsets;
+  final int[] lengths;
+
+  VerticaRow(List<VerticaColumnInfo> columns) {
+    Preconditions.checkNotNull(columns, "columns cannot be null.");
+    this.columns = columns;
+    final int size = columns.size();
+    this.kinds = new byte[size];
+    this.longs = new long[size];
+    this.doubles = new double[size];
+    this.objects = new Object[size];
+    this.offsets = new int[size];
+    this.lengths = new int[size];
+  }
+
+  /**
+   * The number of columns in the row.
+   *
+   * @return The number of columns in the row.
+   */
+  public int size() {
+    return this.kinds.length;
+  }
+
+  /**
+   * Method is used to set all of the columns in the row to null.
+   *
+   * @return this row.
+   */
+  public VerticaRow clear() {
+    Arrays.fill(this.kinds, KIND_NULL);
+    Arrays.fill(this.objects, null);
+    return this;
+  }
+
+  /**
+   * Method is used to check that a row was created by {@link VerticaStreamWriter#newRow()} of the writer it is
+   * committed to. A row holds on to the columns of its writer, so a row of another writer would be encoded with
+   * columns that belong to a different writer.
+   *
+   * @param row     row to check.
+   * @param columns columns of the writer.
+   */
+  static void checkRow(VerticaRow row, List<VerticaColumnInfo> columns) {
+    Preconditions.checkNotNull(row, "row cannot be null.");
+    if (row.columns != columns) {
+      throw new IllegalStateException("The row was not created by newRow() of this writer.");
+    }
+  }
+
+  private VerticaColumnInfo column(int index, VerticaColumnType first, VerticaColumnType second) {
+    final VerticaColumnInfo columnInfo = this.columns.get(index);
+    if (first != columnInfo.type && second != columnInfo.type) {
+      throw new IllegalStateException(
+          String.format(
+              "Column '%s' at index %s is %s. Expected %s or %s.",
+              columnInfo.name,
+              index,
+              columnInfo.type,
+              first,
+              second
+          )
+      );
+    }
+    return columnInfo;
+  }
+
+  /**
+   * Method is used to set a column to null.
+   *
+   * @param index index of the column.
+   * @return this row.
+   */
+  public VerticaRow setNull(int index) {
+    this.kinds[index] = KIND_NULL;
+    this.objects[index] = null;
+    return this;
+  }
+
+  /**
+   * Method is used to set the value of an INTEGER, INTERVAL or NUMERIC column, or a column declared with a
+   * {@link TemporalInput}. INTERVAL values are in microseconds unless the column declares otherwise. NUMERIC values
+   * are the whole value, not the unscaled value. 5 is written as 5.00 to a NUMERIC(10,2) column.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setLong(int index, long value) {
+    final VerticaColumnInfo columnInfo = this.columns.get(index);
+    if (null == columnInfo.temporalInput && VerticaColumnType.NUMERIC != columnInfo.type) {
+      column(index, VerticaColumnType.INTEGER, VerticaColumnType.INTERVAL);
+    }
+    this.kinds[index] = KIND_LONG;
+    this.longs[index] = value;
+    return this;
+  }
+
+  /**
+   * Method is used to set the value of an INTEGER, INTERVAL or NUMERIC column, or a column declared with a
+   * {@link TemporalInput}. See {@link #setLong(int, long)}.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setInt(int index, int value) {
+    return setLong(index, value);
+  }
+
+  /**
+   * Method is used to set the value of a FLOAT column.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setDouble(int index, double value) {
+    column(index, VerticaColumnType.FLOAT, VerticaColumnType.FLOAT);
+    this.kinds[index] = KIND_DOUBLE;
+    this.doubles[index] = value;
+    return this;
+  }
+
+  /**
+   * Method is used to set the value of a BOOLEAN column.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setBoolean(int index, boolean value) {
+    column(index, VerticaColumnType.BOOLEAN, VerticaColumnType.BOOLEAN);
+    this.kinds[index] = KIND_BOOLEAN;
+    this.longs[index] = value ? 1L : 0L;
+    return this;
+  }
+
+  /**
+   * Method is used to set the value of a BINARY or VARBINARY column. The array is referenced, not copied, so it
+   * must not be modified until the row is committed.
+   *
+   * @param index  index of the column.
+   * @param value  array containing the value.
+   * @param offset offset of the value in the array.
+   * @param length length of the value.
+   * @return this row.
+   */
+  public VerticaRow setBytes(int index, byte[] value, int offset, int length) {
+    column(index, VerticaColumnType.BINARY, VerticaColumnType.VARBINARY);
+    return setRange(index, value, offset, length);
+  }
+
+  /**
+   * Method is used to set the value of a BINARY or VARBINARY column. The array is referenced, not copied, so it
+   * must not be modified until the row is committed.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setBytes(int index, byte[] value) {
+    Preconditions.checkNotNull(value, "value cannot be null.");
+    return setBytes(index, value, 0, value.length);
+  }
+
+  /**
+   * Method is used to set the value of a CHAR or VARCHAR column to UTF-8 encoded bytes. The array is referenced,
+   * not copied, so it must not be modified until the row is committed.
+   *
+   * @param index  index of the column.
+   * @param value  array containing the UTF-8 encoded value.
+   * @param offset offset of the value in the array.
+   * @param length length of the value.
+   * @return this row.
+   */
+  public VerticaRow setUtf8(int index, byte[] value, int offset, int length) {
+    column(index, VerticaColumnType.CHAR, VerticaColumnType.VARCHAR);
+    return setRange(index, value, offset, length);
+  }
+
+  /**
+   * Method is used to set the value of a CHAR or VARCHAR column to UTF-8 encoded bytes. The array is referenced,
+   * not copied, so it must not be modified until the row is committed.
+   *
+   * @param index index of the column.
+   * @param value array containing the UTF-8 encoded value.
+   * @return this row.
+   */
+  public VerticaRow setUtf8(int index, byte[] value) {
+    Preconditions.checkNotNull(value, "value cannot be null.");
+    return setUtf8(index, value, 0, value.length);
+  }
+
+  private VerticaRow setRange(int index, byte[] value, int offset, int length) {
+    Preconditions.checkNotNull(value, "value cannot be null.");
+    if (offset < 0 || length < 0 || offset + length > value.length) {
+      throw new IndexOutOfBoundsException(
+          String.format("offset %s and length %s are out of bounds for %s byte(s).", offset, length, value.length)
+      );
+    }
+    this.kinds[index] = KIND_BYTES;
+    this.objects[index] = value;
+    this.offsets[index] = offset;
+    this.lengths[index] = length;
+    return this;
+  }
+
+  /**
+   * Method is used to set the value of a column to an object. The value is encoded the same way as the values
+   * passed to {@link VerticaStreamWriter#write(Object[])}.
+   *
+   * @param index index of the column.
+   * @param value value for the column.
+   * @return this row.
+   */
+  public VerticaRow setObject(int index, Object value) {
+    if (null == value) {
+      return setNull(index);
+    }
+    this.kinds[index] = KIND_OBJECT;
+    this.objects[index] = value;
+    return this;
+  }
+
+  /**
+   * Method is used to determine if a column is null.
+   *
+   * @param index index of the column.
+   * @return true if the column is null.
+   */
+  public boolean isNull(int index) {
+    return KIND_NULL == this.kinds[index];
+  }
+
+  /**
+   * Method is used to copy the values of this row to another row with the same columns. Byte arrays and objects
+   * are referenced, not copied.
+   *
+   * @param target row to copy the values to.
+   */
+  void copyTo(VerticaRow target) {
+    Preconditions.checkState(
+        this.kinds.length == target.kinds.length,
+        "target must have %s column(s).",
+        this.kinds.length
+    );
+    System.arraycopy(this.kinds, 0, target.kinds, 0, this.kinds.length);
+    System.arraycopy(this.longs, 0, target.longs, 0, this.longs.length);
+    System.arraycopy(this.doubles, 0, target.doubles, 0, this.doubles.length);
+    System.arraycopy(this.objects, 0, target.objects, 0, this.objects.length);
+    System.arraycopy(this.offsets, 0, target.offsets, 0, this.offsets.length);
+    System.arraycopy(this.lengths, 0, target.lengths, 0, this.lengths.length);
+  }
+
+  /**
+   * Method is used to encode the row data. The row header must already be reserved in the buffer.
+   *
+   * @param buffer buffer to write to.
+   */
+  void encode(ByteBuffer buffer) {
+    for (int i = 0; i < this.kinds.length; i++) {
+      encodeColumn(buffer, i);
+    }
+  }
+
+  /**
+   * Method is used to encode a single column of the row.
+   *
+   * @param buffer buffer to write to.
+   * @param i      index of the column.
+   */
+  void encodeColumn(ByteBuffer buffer, int i) {
+    final VerticaColumnInfo columnInfo = this.columns.get(i);
+    switch (this.kinds[i]) {
+      case KIND_NULL:
+        VerticaNativeStreamWriter.nullMarker(buffer, i);
+        break;
+      case KIND_LONG:
+        columnInfo.encodeLong(buffer, this.longs[i]);
+        break;
+      case KIND_DOUBLE:
+        columnInfo.encodeDouble(buffer, this.doubles[i]);
+        break;
+      case KIND_BOOLEAN:
+        columnInfo.encodeBoolean(buffer, 0L != this.longs[i]);
+        break;
+      case KIND_BYTES:
+        columnInfo.encodeBytes(buffer, (byte[]) this.objects[i], this.offsets[i], this.lengths[i]);
+        break;
+      case KIND_OBJECT:
+        columnInfo.encode(buffer, this.objects[i]);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Unknown kind %s for column '%s'.", this.kinds[i], columnInfo.name)
+        );
+    }
+  }
+
+}
@@ -16,13 +16,14 @@
 package com.github.jcustenborder.vertica;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.List;
 
 /**
  *
  */
-public interface VerticaStreamWriter extends Closeable {
+public interface VerticaStreamWriter extends Closeable, Flushable {
   /**
    * Method is used to write a row to the stream.
    * @param row Array containing the objects for a row.
@@ -31,6 +32,62 @@ public interface VerticaStreamWriter extends Closeable {
    */
   void write(Object[] row) throws IOException;
 
+  /**
+   * Method is used to create a reusable row that can be populated with primitive values and written with
+   * {@link #commit(VerticaRow)}. The default implementation throws {@link UnsupportedOperationException} so existing
+   * implementations keep compiling.
+   * @return Row with all of the columns set to null.
+   */
+  default VerticaRow newRow() {
+    throw new UnsupportedOperationException(
+        String.format("%s does not support VerticaRow.", getClass().getName())
+    );
+  }
+
+  /**
+   * Method is used to write a row to the stream.
+   * @param row Row created by {@link #newRow()}.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   * @exception IllegalStateException Exception thrown if the row was not created by {@link #newRow()} of this writer.
+   * @exception UnsupportedOperationException Exception thrown by the default implementation.
+   */
+  default void commit(VerticaRow row) throws IOException {
+    throw new UnsupportedOperationException(
+        String.format("%s does not support VerticaRow.", getClass().getName())
+    );
+  }
+
+  /**
+   * Method is used to write all of the rows in a batch to the stream.
+   * @param batch Batch containing the values for each column.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   * @exception IllegalStateException Exception thrown if the batch does not match the columns defined.
+   * @exception UnsupportedOperationException Exception thrown by the default implementation.
+   */
+  default void writeBatch(ColumnBatch batch) throws IOException {
+    throw new UnsupportedOperationException(
+        String.format("%s does not support ColumnBatch.", getClass().getName())
+    );
+  }
+
+  /**
+   * Method is used to write any buffered rows to the backing stream and flush it. The default implementation does
+   * nothing, which matches implementations that do not buffer rows.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  default void flush() throws IOException {
+
+  }
+
+  /**
+   * Method is used to write any buffered rows and finish the stream. Compressed streams created by the builder are
+   * finished so their trailer is written. Streams supplied to the builder are flushed but not closed.
+   * @throws IOException Exception thrown where there is an issue writing to the backing stream.
+   */
+  @Override
+  void close() throws IOException;
+
   /**
    *
    * @return
@@ -16,18 +16,21 @@
 package com.github.jcustenborder.vertica;
 
 import com.google.common.base.Preconditions;
-import org.anarres.lzo.LzoOutputStream;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.compress.zstd.ZstdOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.Deflater;
 
 public class VerticaStreamWriterBuilder {
@@ -35,7 +38,29 @@ public class VerticaStreamWriterBuilder {
   private static final Logger log = LoggerFactory.getLogger(VerticaStreamWriterBuilder.class);
   String schema;
   String table;
-  int rowBufferSize = 1024 * 1024;
+  int rowBufferSize = 64 * 1024;
+  int maxRowBufferSize = 64 * 1024 * 1024;
+  int blockSize = 0;
+  int encoderThreads = 0;
+  int encoderChunkSize = 1024;
+  BufferAllocator bufferAllocator = BufferAllocator.HEAP;
+  int mappedExtentSize = 64 * 1024 * 1024;
+  boolean mappedSync = false;
+  long rollingMaxBytes = 0;
+  long rollingMaxRows = 0;
+  boolean rollingCompressedBytes = false;
+  List<String> segmentationColumns = new ArrayList<>();
+  int segmentCount = 0;
+  SegmentHasher segmentHasher;
+  long flushRows = 0;
+  long flushBytes = 0;
+  long flushInterval = 0;
+  MetricsListener metricsListener;
+  int metricsSampleInterval = 1024;
+  int asyncQueueSize = 8192;
+  ThreadFactory asyncThreadFactory;
+  int compressionThreads = 0;
+  int compressionBlockSize = 4 * 1024 * 1024;
   VerticaLoadMethod loadMethod;
   Integer compressionLevel;
   VerticaStreamWriterType streamWriterType = VerticaStreamWriterType.NATIVE;
@@ -60,11 +85,54 @@ public class VerticaStreamWriterBuilder {
     return this;
   }
 
+  public int compressionThreads() {
+    return compressionThreads;
+  }
+
+  /**
+   * Number of threads used to compress the stream. The stream is compressed on the calling thread when set to 0,
+   * which is the default. Otherwise the stream is split into blocks of {@link #compressionBlockSize()} bytes that are
+   * compressed in parallel and written as concatenated gzip members, bzip2 streams, LZO blocks or ZSTD frames.
+   *
+   * @param compressionThreads Number of threads used to compress the stream.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder compressionThreads(int compressionThreads) {
+    Preconditions.checkState(compressionThreads >= 0, "compressionThreads must be greater than or equal to zero.");
+    this.compressionThreads = compressionThreads;
+    return this;
+  }
+
+  public int compressionBlockSize() {
+    return compressionBlockSize;
+  }
+
+  /**
+   * Size of the blocks that are compressed independently when {@link #compressionThreads()} is greater than 0.
+   *
+   * @param compressionBlockSize Size of the block in bytes.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder compressionBlockSize(int compressionBlockSize) {
+    Preconditions.checkState(
+        compressionBlockSize > MIN_ROW_BUFFER,
+        "compressionBlockSize must be greater than %s bytes.",
+        MIN_ROW_BUFFER);
+    this.compressionBlockSize = compressionBlockSize;
+    return this;
+  }
+
   public int rowBufferSize() {
     return rowBufferSize;
   }
 
-
+  /**
+   * Initial size of the buffer a row is encoded into. The buffer is doubled when a row does not fit, up to
+   * {@link #maxRowBufferSize()}, and shrunk back after a run of small rows.
+   *
+   * @param rowBufferSize Initial size of the row buffer in bytes. Defaults to 64 KB.
+   * @return builder
+   */
   public VerticaStreamWriterBuilder rowBufferSize(int rowBufferSize) {
     Preconditions.checkState(
         rowBufferSize > MIN_ROW_BUFFER,
@@ -74,13 +142,370 @@ public class VerticaStreamWriterBuilder {
     return this;
   }
 
+  public int maxRowBufferSize() {
+    return maxRowBufferSize;
+  }
 
-  public VerticaStreamWriter build(OutputStream outputStream) throws IOException {
-    Preconditions.checkNotNull(outputStream, "outputStream cannot be null.");
-    Preconditions.checkNotNull(this.table, "table cannot be null or empty.");
-    Preconditions.checkState(!this.table.isEmpty(), "table cannot be null or empty.");
+  /**
+   * Maximum size the row buffer can grow to. A row that is larger is rejected with an
+   * {@link IllegalStateException} and the writer can continue to be used with the next row.
+   *
+   * @param maxRowBufferSize Maximum size of the row buffer in bytes. Defaults to 64 MB.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder maxRowBufferSize(int maxRowBufferSize) {
+    Preconditions.checkState(
+        maxRowBufferSize > MIN_ROW_BUFFER,
+        "maxRowBufferSize must be greater than %s bytes.",
+        MIN_ROW_BUFFER);
+    this.maxRowBufferSize = maxRowBufferSize;
+    return this;
+  }
 
-    final OutputStream stream;
+  public int blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Size of the block that encoded rows are accumulated in before being written to the stream. Rows are written
+   * to the stream individually when set to 0, which is the default.
+   *
+   * @param blockSize Size of the block in bytes. Values between 4 and 16 MB work well with compressed streams.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder blockSize(int blockSize) {
+    Preconditions.checkState(
+        0 == blockSize || blockSize > MIN_ROW_BUFFER,
+        "blockSize must be 0 or greater than %s bytes.",
+        MIN_ROW_BUFFER);
+    this.blockSize = blockSize;
+    return this;
+  }
+
+  public int encoderThreads() {
+    return encoderThreads;
+  }
+
+  /**
+   * Number of threads used to encode rows. Rows are encoded on the calling thread when set to 0, which is the
+   * default. Otherwise rows are collected into chunks of {@link #encoderChunkSize()} rows that are encoded in
+   * parallel and written in the order they were received. Values written with {@link VerticaStreamWriter#write(Object[])}
+   * are copied to the chunk so the array can be reused, but mutable values such as byte arrays must not be
+   * modified after the row is written.
+   *
+   * @param encoderThreads Number of threads used to encode rows.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder encoderThreads(int encoderThreads) {
+    Preconditions.checkState(encoderThreads >= 0, "encoderThreads must be greater than or equal to zero.");
+    this.encoderThreads = encoderThreads;
+    return this;
+  }
+
+  public int encoderChunkSize() {
+    return encoderChunkSize;
+  }
+
+  /**
+   * Number of rows that are encoded together by an encoder thread.
+   *
+   * @param encoderChunkSize Number of rows per chunk.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder encoderChunkSize(int encoderChunkSize) {
+    Preconditions.checkState(encoderChunkSize > 0, "encoderChunkSize must be greater than zero.");
+    this.encoderChunkSize = encoderChunkSize;
+    return this;
+  }
+
+  public BufferAllocator bufferAllocator() {
+    return bufferAllocator;
+  }
+
+  /**
+   * Allocator used for the row and block buffers of the writer. Buffers are returned to the allocator when the
+   * writer is closed. Defaults to {@link BufferAllocator#HEAP}, which allocates a heap buffer for each writer. Use
+   * {@link PooledBufferAllocator#shared()} to share pooled direct buffers between short lived writers.
+   *
+   * @param bufferAllocator Allocator used for the buffers of the writer.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder bufferAllocator(BufferAllocator bufferAllocator) {
+    Preconditions.checkNotNull(bufferAllocator, "bufferAllocator cannot be null.");
+    this.bufferAllocator = bufferAllocator;
+    return this;
+  }
+
+  public int mappedExtentSize() {
+    return mappedExtentSize;
+  }
+
+  /**
+   * Number of bytes of the file that are mapped at a time by {@link #build(Path)}. The file grows one extent at a
+   * time and is truncated to the size of the data when the writer is closed. The truncate happens while the last
+   * extent is still mapped, which Windows does not allow.
+   *
+   * @param mappedExtentSize Number of bytes mapped at a time.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder mappedExtentSize(int mappedExtentSize) {
+    Preconditions.checkState(
+        mappedExtentSize > MIN_ROW_BUFFER,
+        "mappedExtentSize must be greater than %s bytes.",
+        MIN_ROW_BUFFER);
+    this.mappedExtentSize = mappedExtentSize;
+    return this;
+  }
+
+  public boolean mappedSync() {
+    return mappedSync;
+  }
+
+  /**
+   * Flag to determine if {@link #build(Path)} forces each extent to disk once it is full and the file when the
+   * writer is closed.
+   *
+   * @param mappedSync true to force the file to disk. Defaults to false.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder mappedSync(boolean mappedSync) {
+    this.mappedSync = mappedSync;
+    return this;
+  }
+
+  public long rollingMaxBytes() {
+    return rollingMaxBytes;
+  }
+
+  /**
+   * Number of bytes after which a {@link RollingVerticaStreamWriter} starts a new part. The part is completed after
+   * the row that reaches the threshold, so parts can be slightly larger. Set to 0, which is the default, to roll on
+   * rows only.
+   *
+   * @param rollingMaxBytes Number of bytes per part.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder rollingMaxBytes(long rollingMaxBytes) {
+    Preconditions.checkState(rollingMaxBytes >= 0, "rollingMaxBytes must be greater than or equal to zero.");
+    this.rollingMaxBytes = rollingMaxBytes;
+    return this;
+  }
+
+  public long rollingMaxRows() {
+    return rollingMaxRows;
+  }
+
+  /**
+   * Number of rows after which a {@link RollingVerticaStreamWriter} starts a new part. Set to 0, which is the
+   * default, to roll on bytes only.
+   *
+   * @param rollingMaxRows Number of rows per part.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder rollingMaxRows(long rollingMaxRows) {
+    Preconditions.checkState(rollingMaxRows >= 0, "rollingMaxRows must be greater than or equal to zero.");
+    this.rollingMaxRows = rollingMaxRows;
+    return this;
+  }
+
+  public boolean rollingCompressedBytes() {
+    return rollingCompressedBytes;
+  }
+
+  /**
+   * Flag to determine if {@link #rollingMaxBytes()} is compared to the bytes written to the stream of the part
+   * instead of the uncompressed native data. Compressors buffer data so the compressed size trails the rows that
+   * have been written.
+   *
+   * @param rollingCompressedBytes true to roll on compressed bytes. Defaults to false.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder rollingCompressedBytes(boolean rollingCompressedBytes) {
+    this.rollingCompressedBytes = rollingCompressedBytes;
+    return this;
+  }
+
+  public List<String> segmentationColumns() {
+    return segmentationColumns;
+  }
+
+  /**
+   * Columns that are hashed by a {@link PartitionedVerticaStreamWriter} to pick the segment for a row. The columns
+   * are hashed in the order supplied.
+   *
+   * @param segmentationColumns Names of the segmentation columns.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder segmentationColumns(String... segmentationColumns) {
+    Preconditions.checkNotNull(segmentationColumns, "segmentationColumns cannot be null.");
+    this.segmentationColumns = new ArrayList<>(Arrays.asList(segmentationColumns));
+    return this;
+  }
+
+  public int segmentCount() {
+    return segmentCount;
+  }
+
+  /**
+   * Number of segments, typically the number of nodes, that a {@link PartitionedVerticaStreamWriter} writes to.
+   *
+   * @param segmentCount Number of segments.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder segmentCount(int segmentCount) {
+    Preconditions.checkState(segmentCount > 0, "segmentCount must be greater than zero.");
+    this.segmentCount = segmentCount;
+    return this;
+  }
+
+  public SegmentHasher segmentHasher() {
+    return segmentHasher;
+  }
+
+  /**
+   * Hash used by a {@link PartitionedVerticaStreamWriter} over the encoded segmentation columns. There is no default
+   * and {@link #buildPartitioned(PartitionedVerticaStreamWriter.SegmentSink)} fails until one is set. The algorithm
+   * behind the HASH function in Vertica is not published, so supply an implementation of it to place rows on the
+   * node that owns them. {@link SegmentHasher#MURMUR3} only spreads rows evenly across the segments.
+   *
+   * @param segmentHasher Hash for the segmentation columns.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder segmentHasher(SegmentHasher segmentHasher) {
+    Preconditions.checkNotNull(segmentHasher, "segmentHasher cannot be null.");
+    this.segmentHasher = segmentHasher;
+    return this;
+  }
+
+  public long flushRows() {
+    return flushRows;
+  }
+
+  /**
+   * Number of rows after which the writer is flushed. Set to 0, which is the default, to disable.
+   *
+   * @param flushRows Number of rows between flushes.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder flushRows(long flushRows) {
+    Preconditions.checkState(flushRows >= 0, "flushRows must be greater than or equal to zero.");
+    this.flushRows = flushRows;
+    return this;
+  }
+
+  public long flushBytes() {
+    return flushBytes;
+  }
+
+  /**
+   * Number of uncompressed bytes after which the writer is flushed. Set to 0, which is the default, to disable.
+   *
+   * @param flushBytes Number of bytes between flushes.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder flushBytes(long flushBytes) {
+    Preconditions.checkState(flushBytes >= 0, "flushBytes must be greater than or equal to zero.");
+    this.flushBytes = flushBytes;
+    return this;
+  }
+
+  public long flushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * Number of milliseconds after which the writer is flushed. The interval is checked when rows are written, and
+   * by the I/O thread of an {@link AsyncVerticaStreamWriter} while it is waiting for rows. Set to 0, which is the
+   * default, to disable.
+   *
+   * @param flushInterval Number of milliseconds between flushes.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder flushInterval(long flushInterval) {
+    Preconditions.checkState(flushInterval >= 0, "flushInterval must be greater than or equal to zero.");
+    this.flushInterval = flushInterval;
+    return this;
+  }
+
+  public MetricsListener metricsListener() {
+    return metricsListener;
+  }
+
+  /**
+   * Listener that receives metrics from the writer. Metrics are disabled when set to null, which is the default.
+   *
+   * @param metricsListener Listener that receives the metrics.
+   * @return builder
+   * @see WriterMetrics
+   */
+  public VerticaStreamWriterBuilder metricsListener(MetricsListener metricsListener) {
+    this.metricsListener = metricsListener;
+    return this;
+  }
+
+  public int metricsSampleInterval() {
+    return metricsSampleInterval;
+  }
+
+  /**
+   * Number of rows between rows that have the encoding of each value timed. Defaults to 1024.
+   *
+   * @param metricsSampleInterval Number of rows between timed rows.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder metricsSampleInterval(int metricsSampleInterval) {
+    Preconditions.checkState(metricsSampleInterval > 0, "metricsSampleInterval must be greater than zero.");
+    this.metricsSampleInterval = metricsSampleInterval;
+    return this;
+  }
+
+  public int asyncQueueSize() {
+    return asyncQueueSize;
+  }
+
+  /**
+   * Number of rows that can be queued by an {@link AsyncVerticaStreamWriter} before callers have to wait for the
+   * I/O thread. A slot is allocated for each row when the writer is built.
+   *
+   * @param asyncQueueSize Number of rows that can be queued.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder asyncQueueSize(int asyncQueueSize) {
+    Preconditions.checkState(asyncQueueSize > 0, "asyncQueueSize must be greater than zero.");
+    this.asyncQueueSize = asyncQueueSize;
+    return this;
+  }
+
+  public ThreadFactory asyncThreadFactory() {
+    if (null == this.asyncThreadFactory) {
+      return new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("vertica-async-writer-%d")
+          .build();
+    }
+    return asyncThreadFactory;
+  }
+
+  /**
+   * Factory used to create the I/O thread of an {@link AsyncVerticaStreamWriter}. Defaults to a daemon platform
+   * thread. On Java 21 or later {@code Thread.ofVirtual().factory()} can be used to run the I/O on a virtual thread.
+   *
+   * @param asyncThreadFactory Factory used to create the I/O thread.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder asyncThreadFactory(ThreadFactory asyncThreadFactory) {
+    this.asyncThreadFactory = asyncThreadFactory;
+    return this;
+  }
+
+  /**
+   * Method is used to create the factory that wraps a stream with the configured compression.
+   *
+   * @return factory or null if the stream is not compressed.
+   * @throws IOException Exception thrown if the compression type is not supported.
+   */
+  CompressorFactory compressorFactory() throws IOException {
+    final CompressorFactory factory;
 
     switch (this.compressionType) {
       case BZIP:
@@ -94,10 +519,11 @@ public class VerticaStreamWriterBuilder {
               this.compressionLevel
           );
           log.debug("Creating BZip2CompressorOutputStream with compressionLevel {}.", this.compressionLevel);
-          stream = new BZip2CompressorOutputStream(outputStream, this.compressionLevel);
+          final int blockSize = this.compressionLevel;
+          factory = out -> new BZip2CompressorOutputStream(out, blockSize);
         } else {
           log.debug("Creating BZip2CompressorOutputStream with default compressionLevel.");
-          stream = new BZip2CompressorOutputStream(outputStream);
+          factory = BZip2CompressorOutputStream::new;
         }
         break;
       case GZIP:
@@ -110,33 +536,145 @@ public class VerticaStreamWriterBuilder {
               Deflater.BEST_COMPRESSION,
               this.compressionLevel
           );
-          GzipParameters parameters = new GzipParameters();
-          parameters.setCompressionLevel(this.compressionLevel);
-          log.debug("Creating GzipCompressorOutputStream with compressionLevel {}.", this.compressionLevel);
-          stream = new GzipCompressorOutputStream(outputStream, parameters);
+          final int compressionLevel = this.compressionLevel;
+          log.debug("Creating SyncFlushGzipOutputStream with compressionLevel {}.", compressionLevel);
+          factory = out -> new SyncFlushGzipOutputStream(out, compressionLevel);
         } else {
-          log.debug("Creating GzipCompressorOutputStream with default compressionLevel.");
-          stream = new GzipCompressorOutputStream(outputStream);
+          log.debug("Creating SyncFlushGzipOutputStream with default compressionLevel.");
+          factory = SyncFlushGzipOutputStream::new;
         }
         break;
       case UNCOMPRESSED:
-        stream = outputStream;
+        factory = null;
         break;
       case LZO:
-        log.debug("Creating LzoOutputStream with default compressionLevel.");
-        stream = new LzoOutputStream(outputStream);
+        log.debug("Creating SyncFlushLzoOutputStream with default compressionLevel.");
+        factory = SyncFlushLzoOutputStream::new;
+        break;
+      case ZSTD:
+        Preconditions.checkState(
+            null == this.compressionLevel,
+            "compressionLevel is not supported for %s. Streams are written at the default level.",
+            this.compressionType
+        );
+        log.debug("Creating ZstdOutputStream with default compressionLevel.");
+        factory = ZstdOutputStream::new;
         break;
       default:
         throw new UnsupportedEncodingException(
-            String.format("Unsupported compression type of %s", this.streamWriterType)
+            String.format("Unsupported compression type of %s", this.compressionType)
         );
     }
 
+    return factory;
+  }
+
+  public VerticaStreamWriter build(OutputStream outputStream) throws IOException {
+    Preconditions.checkNotNull(outputStream, "outputStream cannot be null.");
+    return build(outputStream, false);
+  }
+
+  /**
+   * Method is used to build a writer that writes to a file through memory mapped extents of
+   * {@link #mappedExtentSize()} bytes. Existing files are truncated. The file is closed with the writer, which is
+   * suitable for staging files that are loaded with COPY FROM LOCAL. The file is truncated while the last extent is
+   * still mapped, which fails on Windows. Use {@link #build(OutputStream)} with a file stream there.
+   *
+   * @param path file to write to.
+   * @return writer for the file.
+   * @throws IOException Exception thrown if the file cannot be opened.
+   */
+  public VerticaStreamWriter build(Path path) throws IOException {
+    Preconditions.checkNotNull(path, "path cannot be null.");
+    log.debug("Creating MappedFileOutputStream for '{}' with extents of {} byte(s).", path, this.mappedExtentSize);
+    final MappedFileOutputStream outputStream = new MappedFileOutputStream(path, this.mappedExtentSize, this.mappedSync);
+    try {
+      return build(outputStream, true);
+    } catch (IOException | RuntimeException e) {
+      outputStream.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Method is used to wrap a stream with the configured compression.
+   *
+   * @param outputStream stream to wrap.
+   * @return stream that compresses to the supplied stream or the supplied stream if it is not compressed.
+   * @throws IOException Exception thrown if the compression type is not supported.
+   */
+  OutputStream compress(OutputStream outputStream) throws IOException {
+    final CompressorFactory compressorFactory = compressorFactory();
+    final OutputStream stream;
+
+    if (null != compressorFactory && null != this.metricsListener) {
+      outputStream = new MetricsOutputStream(outputStream, this.metricsListener);
+    }
+
+    if (null == compressorFactory) {
+      stream = outputStream;
+    } else if (this.compressionThreads > 0) {
+      log.debug(
+          "Creating ParallelCompressorOutputStream with {} thread(s) and a block size of {} byte(s).",
+          this.compressionThreads,
+          this.compressionBlockSize
+      );
+      stream = new ParallelCompressorOutputStream(
+          outputStream,
+          compressorFactory,
+          this.compressionBlockSize,
+          this.compressionThreads,
+          WriterEvents.create(this)
+      );
+    } else {
+      final WriterEvents events = WriterEvents.create(this);
+      final CountingOutputStream compressed;
+      if (WriterEvents.DISABLED == events) {
+        compressed = null;
+      } else {
+        compressed = new CountingOutputStream(outputStream);
+        outputStream = compressed;
+      }
+      final OutputStream compressor;
+      if (VerticaCompressionType.BZIP == this.compressionType
+          || VerticaCompressionType.ZSTD == this.compressionType) {
+        // bzip2 and ZSTD cannot sync flush so a new stream is started after each flush.
+        log.debug("Creating RestartingCompressorOutputStream for {}.", this.compressionType);
+        compressor = new RestartingCompressorOutputStream(outputStream, compressorFactory);
+      } else {
+        compressor = compressorFactory.create(outputStream);
+      }
+      stream = null == compressed ? compressor : new CompressorEventsOutputStream(compressor, compressed, events);
+    }
+    return stream;
+  }
+
+  VerticaStreamWriter build(OutputStream outputStream, boolean closeStream) throws IOException {
+    Preconditions.checkNotNull(this.table, "table cannot be null or empty.");
+    Preconditions.checkState(!this.table.isEmpty(), "table cannot be null or empty.");
+
+    final OutputStream stream;
+    final boolean closeNativeStream;
+    if (VerticaCompressionType.UNCOMPRESSED == this.compressionType) {
+      stream = outputStream;
+      closeNativeStream = closeStream;
+    } else {
+      // The compressor is owned by the writer and is closed to write its trailer.
+      stream = compress(closeStream ? outputStream : new NonClosingOutputStream(outputStream));
+      closeNativeStream = true;
+    }
+
     VerticaStreamWriter writer;
 
     switch (this.streamWriterType) {
       case NATIVE:
-        writer = new VerticaNativeStreamWriter(this, stream);
+        VerticaNativeStreamWriter nativeWriter = new VerticaNativeStreamWriter(this, stream, closeNativeStream);
+        if (this.encoderThreads > 0) {
+          log.debug("Creating PipelinedVerticaStreamWriter with {} encoder thread(s).", this.encoderThreads);
+          writer = new PipelinedVerticaStreamWriter(this, nativeWriter);
+        } else {
+          writer = nativeWriter;
+        }
         break;
       default:
         throw new UnsupportedEncodingException(
@@ -147,6 +685,70 @@ public class VerticaStreamWriterBuilder {
     return writer;
   }
 
+  /**
+   * Method is used to build a writer that splits the output into parts of {@link #rollingMaxBytes()} bytes or
+   * {@link #rollingMaxRows()} rows. Rows are encoded on the calling thread.
+   *
+   * @param sink     opens the stream for each part.
+   * @param listener receives each part once it has been completed.
+   * @return writer that rolls between parts.
+   */
+  public RollingVerticaStreamWriter buildRolling(
+      RollingVerticaStreamWriter.PartSink sink,
+      RollingVerticaStreamWriter.PartListener listener) {
+    Preconditions.checkNotNull(this.table, "table cannot be null or empty.");
+    Preconditions.checkState(!this.table.isEmpty(), "table cannot be null or empty.");
+    Preconditions.checkState(
+        VerticaStreamWriterType.NATIVE == this.streamWriterType,
+        "Unsupported stream writer type of %s",
+        this.streamWriterType
+    );
+    log.debug(
+        "Creating RollingVerticaStreamWriter with rollingMaxBytes = {} and rollingMaxRows = {}.",
+        this.rollingMaxBytes,
+        this.rollingMaxRows
+    );
+    return new RollingVerticaStreamWriter(this, sink, listener);
+  }
+
+  /**
+   * Method is used to build a writer that routes each row to the stream of a segment based on the hash of the
+   * {@link #segmentationColumns()}. A stream is opened for each of the {@link #segmentCount()} segments when the
+   * writer is built. Rows are encoded on the calling thread.
+   *
+   * @param sink opens the stream for each segment.
+   * @return writer that routes rows to segments.
+   * @throws IOException Exception thrown if a stream cannot be opened.
+   */
+  public PartitionedVerticaStreamWriter buildPartitioned(PartitionedVerticaStreamWriter.SegmentSink sink) throws IOException {
+    Preconditions.checkNotNull(this.table, "table cannot be null or empty.");
+    Preconditions.checkState(!this.table.isEmpty(), "table cannot be null or empty.");
+    Preconditions.checkState(
+        VerticaStreamWriterType.NATIVE == this.streamWriterType,
+        "Unsupported stream writer type of %s",
+        this.streamWriterType
+    );
+    log.debug(
+        "Creating PartitionedVerticaStreamWriter with {} segment(s) on {}.",
+        this.segmentCount,
+        this.segmentationColumns
+    );
+    return new PartitionedVerticaStreamWriter(this, sink);
+  }
+
+  /**
+   * Method is used to build a writer that writes to the stream on a dedicated I/O thread.
+   *
+   * @param outputStream stream to write to.
+   * @return writer that queues rows for the I/O thread.
+   * @throws IOException Exception thrown if the writer could not be created.
+   */
+  public AsyncVerticaStreamWriter buildAsync(OutputStream outputStream) throws IOException {
+    final VerticaStreamWriter writer = build(outputStream);
+    log.debug("Creating AsyncVerticaStreamWriter with {} slot(s).", this.asyncQueueSize);
+    return new AsyncVerticaStreamWriter(this, writer);
+  }
+
   public VerticaStreamWriterBuilder column(String name, VerticaColumnType type, int size) {
     VerticaColumnInfo columnInfo = new VerticaColumnInfo(name, type, size);
     this.columnInfos.add(columnInfo);
@@ -165,6 +767,95 @@ public class VerticaStreamWriterBuilder {
     return this;
   }
 
+  /**
+   * Method is used to add a column that is always written with values of the supplied java type. The encoder for
+   * the type is resolved when the column is added instead of when values are written.
+   *
+   * @param name      Name of the column.
+   * @param type      Type of the column.
+   * @param inputType Java type of the values written to the column.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder column(String name, VerticaColumnType type, Class<?> inputType) {
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo(name, type, VerticaColumnInfo.sizeForType(type), -1, -1, inputType);
+    this.columnInfos.add(columnInfo);
+    return this;
+  }
+
+  /**
+   * Method is used to add a column that is always written with values of the supplied java type. The encoder for
+   * the type is resolved when the column is added instead of when values are written.
+   *
+   * @param name      Name of the column.
+   * @param type      Type of the column.
+   * @param size      Size of the column.
+   * @param inputType Java type of the values written to the column.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder column(String name, VerticaColumnType type, int size, Class<?> inputType) {
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo(name, type, size, -1, -1, inputType);
+    this.columnInfos.add(columnInfo);
+    return this;
+  }
+
+  /**
+   * Method is used to add a column that is always written with values of the supplied java type. The encoder for
+   * the type is resolved when the column is added instead of when values are written.
+   *
+   * @param name      Name of the column.
+   * @param type      Type of the column.
+   * @param precision Precision of the column.
+   * @param scale     Scale of the column.
+   * @param inputType Java type of the values written to the column.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder column(String name, VerticaColumnType type, int precision, int scale, Class<?> inputType) {
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo(name, type, -1, precision, scale, inputType);
+    this.columnInfos.add(columnInfo);
+    return this;
+  }
+
+  /**
+   * Method is used to add a DATE, TIME, TIMESTAMP, TIMESTAMPTZ or INTERVAL column that is written with primitive
+   * long or int values. The values are converted with plain arithmetic and keep full microsecond precision. Values
+   * can be written with {@link VerticaStreamWriter#write(Object[])}, {@link VerticaRow#setLong(int, long)} or
+   * {@link ColumnBatch#longs(int, long[])}. Objects such as {@link java.util.Date} are still accepted.
+   *
+   * @param name          Name of the column.
+   * @param type          Type of the column.
+   * @param temporalInput Unit of the values written to the column.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder column(String name, VerticaColumnType type, TemporalInput temporalInput) {
+    Preconditions.checkNotNull(temporalInput, "temporalInput cannot be null.");
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo(name, type, temporalInput);
+    this.columnInfos.add(columnInfo);
+    return this;
+  }
+
+  /**
+   * Method is used to cache the encoded values of a VARCHAR or CHAR column. This is intended for columns with a
+   * small number of distinct values such as status codes or enum names. Values that are found in the cache are
+   * written without being encoded again. String and Enum values are cached, Enum values are written with their
+   * name. Strings longer than 256 characters are not cached. The least recently used value is evicted once the
+   * cache is full. Each encoding thread keeps its own cache.
+   *
+   * @param name       Name of the column. The column must already be added to the builder.
+   * @param maxEntries Maximum number of values to cache.
+   * @return builder
+   */
+  public VerticaStreamWriterBuilder encodedValueCache(String name, int maxEntries) {
+    Preconditions.checkNotNull(name, "name cannot be null.");
+    for (int i = 0; i < this.columnInfos.size(); i++) {
+      final VerticaColumnInfo columnInfo = this.columnInfos.get(i);
+      if (name.equals(columnInfo.name)) {
+        this.columnInfos.set(i, new VerticaColumnInfo(columnInfo, new EncodedValueCache(maxEntries)));
+        return this;
+      }
+    }
+    throw new IllegalStateException(String.format("Column '%s' was not found.", name));
+  }
+
   public String schema() {
     return schema;
   }
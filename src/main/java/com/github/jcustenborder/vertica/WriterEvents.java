@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Class is used to emit JDK Flight Recorder events from the writers. The events are defined in
+ * {@link FlightRecorderWriterEvents}, which is only loaded when the jdk.jfr module is available. Otherwise the
+ * methods of this class do nothing. That class is compiled separately from the rest of the source and is only
+ * created through reflection, so the rest of the library builds and runs without jdk.jfr. Each begin method returns
+ * null unless a recording has enabled the event, and the matching end method ignores null, so the cost is a single
+ * check when the events are disabled.
+ */
+class WriterEvents {
+  private static final Logger log = LoggerFactory.getLogger(WriterEvents.class);
+  static final WriterEvents DISABLED = new WriterEvents();
+  static final Constructor<? extends WriterEvents> FLIGHT_RECORDER = flightRecorder();
+  static final boolean AVAILABLE = null != FLIGHT_RECORDER;
+
+  static Constructor<? extends WriterEvents> flightRecorder() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return Class.forName("com.github.jcustenborder.vertica.FlightRecorderWriterEvents")
+          .asSubclass(WriterEvents.class)
+          .getDeclaredConstructor(String.class, String.class);
+    } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+      log.debug("flightRecorder() - JDK Flight Recorder is not available. Events are disabled.");
+      return null;
+    }
+  }
+
+  /**
+   * Method is used to create the events for a writer.
+   *
+   * @param builder builder for the writer.
+   * @return events that are labeled with the schema and table of the builder.
+   */
+  static WriterEvents create(VerticaStreamWriterBuilder builder) {
+    if (!AVAILABLE) {
+      return DISABLED;
+    }
+    try {
+      return FLIGHT_RECORDER.newInstance(builder.schema, builder.table);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Exception thrown while creating FlightRecorderWriterEvents.", e);
+    }
+  }
+
+  Object beginEncode() {
+    return null;
+  }
+
+  void endEncode(Object event, long rows, long bytes) {
+  }
+
+  Object beginCompress() {
+    return null;
+  }
+
+  void endCompress(Object event, long bytes, long compressedBytes) {
+  }
+
+  Object beginFlush() {
+    return null;
+  }
+
+  void endFlush(Object event, long rows, long bytes) {
+  }
+
+  Object beginWrite() {
+    return null;
+  }
+
+  void endWrite(Object event, long bytes) {
+  }
+}
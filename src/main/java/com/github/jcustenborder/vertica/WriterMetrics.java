@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.base.Preconditions;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics listener that accumulates the metrics of one or more writers in {@link LongAdder} counters. Writers can
+ * share an instance, for example the segments of a {@link PartitionedVerticaStreamWriter}.
+ */
+public final class WriterMetrics implements MetricsListener {
+  final LongAdder rows = new LongAdder();
+  final LongAdder bytes = new LongAdder();
+  final LongAdder writeNanos = new LongAdder();
+  final LongAdder compressedBytes = new LongAdder();
+  final LongAdder compressedWriteNanos = new LongAdder();
+  final LongAdder flushes = new LongAdder();
+  final LongAdder[] nulls;
+  final Map<VerticaColumnType, LongAdder> encodeNanos = new EnumMap<>(VerticaColumnType.class);
+  final Map<VerticaColumnType, LongAdder> encodeSamples = new EnumMap<>(VerticaColumnType.class);
+
+  /**
+   * Creates metrics for writers with the supplied number of columns.
+   *
+   * @param columnCount number of columns written by the writers.
+   */
+  public WriterMetrics(int columnCount) {
+    Preconditions.checkState(columnCount > 0, "columnCount must be greater than zero.");
+    this.nulls = new LongAdder[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      this.nulls[i] = new LongAdder();
+    }
+    for (VerticaColumnType type : VerticaColumnType.values()) {
+      this.encodeNanos.put(type, new LongAdder());
+      this.encodeSamples.put(type, new LongAdder());
+    }
+  }
+
+  @Override
+  public void rowsWritten(long rows, long bytes) {
+    this.rows.add(rows);
+    this.bytes.add(bytes);
+  }
+
+  @Override
+  public void nullWritten(int column) {
+    this.nulls[column].increment();
+  }
+
+  @Override
+  public void valueEncoded(VerticaColumnType type, long nanos) {
+    this.encodeNanos.get(type).add(nanos);
+    this.encodeSamples.get(type).increment();
+  }
+
+  @Override
+  public void bytesWritten(long bytes, long nanos) {
+    this.writeNanos.add(nanos);
+  }
+
+  @Override
+  public void compressedBytesWritten(long bytes, long nanos) {
+    this.compressedBytes.add(bytes);
+    this.compressedWriteNanos.add(nanos);
+  }
+
+  @Override
+  public void flushed() {
+    this.flushes.increment();
+  }
+
+  /**
+   * Number of rows written.
+   *
+   * @return Number of rows written.
+   */
+  public long rows() {
+    return this.rows.sum();
+  }
+
+  /**
+   * Number of uncompressed bytes written for rows. Excludes the file header.
+   *
+   * @return Number of uncompressed bytes.
+   */
+  public long bytes() {
+    return this.bytes.sum();
+  }
+
+  /**
+   * Number of compressed bytes written. 0 if the stream is not compressed.
+   *
+   * @return Number of compressed bytes.
+   */
+  public long compressedBytes() {
+    return this.compressedBytes.sum();
+  }
+
+  /**
+   * Ratio of compressed bytes to uncompressed bytes. 0 if nothing has been compressed.
+   *
+   * @return Ratio of compressed bytes to uncompressed bytes.
+   */
+  public double compressionRatio() {
+    final long bytes = bytes();
+    return 0 == bytes ? 0D : (double) compressedBytes() / bytes;
+  }
+
+  /**
+   * Time blocked writing uncompressed data in nanoseconds. Includes compression on the calling thread.
+   *
+   * @return Time blocked writing uncompressed data.
+   */
+  public long writeNanos() {
+    return this.writeNanos.sum();
+  }
+
+  /**
+   * Time blocked writing compressed data to the stream supplied to the builder in nanoseconds.
+   *
+   * @return Time blocked writing compressed data.
+   */
+  public long compressedWriteNanos() {
+    return this.compressedWriteNanos.sum();
+  }
+
+  /**
+   * Number of times the writers were flushed.
+   *
+   * @return Number of flushes.
+   */
+  public long flushes() {
+    return this.flushes.sum();
+  }
+
+  /**
+   * Number of null values written to a column.
+   *
+   * @param column index of the column.
+   * @return Number of null values.
+   */
+  public long nulls(int column) {
+    return this.nulls[column].sum();
+  }
+
+  /**
+   * Total time of the sampled encodes for a column type in nanoseconds.
+   *
+   * @param type type of the column.
+   * @return Total time of the sampled encodes.
+   */
+  public long encodeNanos(VerticaColumnType type) {
+    return this.encodeNanos.get(type).sum();
+  }
+
+  /**
+   * Number of sampled encodes for a column type.
+   *
+   * @param type type of the column.
+   * @return Number of sampled encodes.
+   */
+  public long encodeSamples(VerticaColumnType type) {
+    return this.encodeSamples.get(type).sum();
+  }
+}
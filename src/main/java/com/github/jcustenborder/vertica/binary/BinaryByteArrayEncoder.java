@@ -17,7 +17,6 @@ package com.github.jcustenborder.vertica.binary;
 
 import com.github.jcustenborder.vertica.Constants;
 import com.github.jcustenborder.vertica.VerticaColumnType;
-import com.google.common.base.Preconditions;
 import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,13 +47,11 @@ class BinaryByteArrayEncoder extends Encoder<byte[]> {
 
     byte[] valueBuffer = (byte[]) input;
 
-    Preconditions.checkState(
-        size >= valueBuffer.length,
-        "Encoded input for '%s' is %s byte(s) but the column is only %s byte(s).",
-        name,
-        valueBuffer.length,
-        size
-    );
+    if (size < valueBuffer.length) {
+      throw new IllegalStateException(String.format(
+          "Encoded input for '%s' is %s byte(s) but the column is only %s byte(s).", name, valueBuffer.length, size
+      ));
+    }
 
     buffer.put(valueBuffer);
     int padding = size - valueBuffer.length;
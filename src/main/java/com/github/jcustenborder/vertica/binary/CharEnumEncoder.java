@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import com.github.jcustenborder.vertica.VerticaColumnType;
+import java.nio.ByteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class CharEnumEncoder extends Encoder<Enum> {
+  private static final Logger log = LoggerFactory.getLogger(CharEnumEncoder.class);
+
+  @Override
+  public VerticaColumnType columnType() {
+    return VerticaColumnType.CHAR;
+  }
+
+  @Override
+  public Class<Enum> inputType() {
+    return Enum.class;
+  }
+
+  @Override
+  public void encode(
+      ByteBuffer buffer,
+      Enum input,
+      String name,
+      int size,
+      int precision,
+      int scale
+  ) {
+    log.trace("input = {}", input);
+
+    // Every char is at least one byte of UTF-8, so a value with more chars than the column can be rejected before it
+    // is encoded.
+    if (size < input.name().length()) {
+      throw new IllegalStateException(String.format(
+          "Value for '%s' is at least %s byte(s) but the column is only %s byte(s).", name, input.name().length(), size
+      ));
+    }
+    final int length = Utf8Encoding.put(buffer, input.name());
+    Utf8Encoding.checkCharLength(length, name, size);
+    Utf8Encoding.pad(buffer, size - length);
+  }
+}
@@ -15,10 +15,7 @@
  */
 package com.github.jcustenborder.vertica.binary;
 
-import com.github.jcustenborder.vertica.Constants;
 import com.github.jcustenborder.vertica.VerticaColumnType;
-import com.google.common.base.Charsets;
-import com.google.common.base.Preconditions;
 import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,20 +44,15 @@ class CharStringEncoder extends Encoder<String> {
   ) {
     log.trace("input = {}", input);
 
-    ByteBuffer valueBuffer = Charsets.UTF_8.encode(input);
-    Preconditions.checkState(
-        size >= valueBuffer.remaining(),
-        "Encoded value for '%s' is %s byte(s) but the column is only %s byte(s).",
-        name,
-        valueBuffer.remaining(),
-        size
-    );
-
-    buffer.put(valueBuffer);
-    int padding = size - valueBuffer.capacity();
-    log.trace("writeChar() - padding value by {} byte(s).");
-    for (int i = 0; i < padding; i++) {
-      buffer.put(Constants.FALSE);
+    // Every char is at least one byte of UTF-8, so a value with more chars than the column can be rejected before it
+    // is encoded.
+    if (size < input.length()) {
+      throw new IllegalStateException(String.format(
+          "Value for '%s' is at least %s byte(s) but the column is only %s byte(s).", name, input.length(), size
+      ));
     }
+    final int length = Utf8Encoding.put(buffer, input);
+    Utf8Encoding.checkCharLength(length, name, size);
+    Utf8Encoding.pad(buffer, size - length);
   }
 }
@@ -33,4 +33,14 @@ public abstract class Encoder<T> {
       final int precision,
       int scale
   );
+
+  /**
+   * Method is used to get an encoder for another set of columns. Encoders that do not keep state between values are
+   * shared, so the default returns this. Encoders that do keep state return a new instance.
+   *
+   * @return encoder to use for another set of columns.
+   */
+  public Encoder<T> copy() {
+    return this;
+  }
 }
@@ -17,22 +17,122 @@ package com.github.jcustenborder.vertica.binary;
 
 import com.github.jcustenborder.vertica.VerticaColumnType;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 public class Encoders {
   private static final Logger log = LoggerFactory.getLogger(Encoders.class);
-  final Map<EncoderKey, Encoder> encoders;
+  static final Map<VerticaColumnType, ClassValue<Class<?>>> RESOLVERS;
 
-  public Encoders() {
-    List<Encoder> encoders = Arrays.asList(
+  static {
+    Map<VerticaColumnType, Set<Class<?>>> registered = new EnumMap<>(VerticaColumnType.class);
+    for (Encoder encoder : createEncoders()) {
+      registered.computeIfAbsent(encoder.columnType(), t -> new HashSet<>()).add(encoder.inputType());
+    }
+
+    Map<VerticaColumnType, ClassValue<Class<?>>> resolvers = new EnumMap<>(VerticaColumnType.class);
+    for (VerticaColumnType columnType : VerticaColumnType.values()) {
+      final Set<Class<?>> inputTypes = ImmutableSet.copyOf(
+          registered.getOrDefault(columnType, ImmutableSet.of())
+      );
+      resolvers.put(columnType, new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+          Class<?> result = resolve(inputTypes, type);
+          log.trace("computeValue() - Resolved {}:{} to {}", columnType, type.getName(), result);
+          return result;
+        }
+      });
+    }
+    RESOLVERS = resolvers;
+  }
+
+  /**
+   * Method is used to write zero bytes to pad a fixed length value to the size of the column.
+   *
+   * @param buffer buffer to write to.
+   * @param count  number of zero bytes to write.
+   */
+  public static void pad(ByteBuffer buffer, int count) {
+    Utf8Encoding.pad(buffer, count);
+  }
+
+  /**
+   * Method is used to write a whole number to a NUMERIC column. The value is scaled to the scale of the column.
+   *
+   * @param buffer    buffer to write to.
+   * @param value     value to write.
+   * @param name      name of the column.
+   * @param size      size of the column.
+   * @param precision precision of the column.
+   * @param scale     scale of the column.
+   */
+  public static void putNumeric(ByteBuffer buffer, long value, String name, int size, int precision, int scale) {
+    NumericEncoding.putLong(buffer, value, name, size, precision, scale);
+  }
+
+  /**
+   * Marker used to cache that a class could not be resolved to an encoder.
+   */
+  static final class Unresolved {
+    private Unresolved() {
+
+    }
+  }
+
+  /**
+   * Method is used to find the registered input type for a class. The class is checked, followed by each of its
+   * superclasses, followed by all of the interfaces it implements.
+   *
+   * @param inputTypes input types that have an encoder.
+   * @param type       type to resolve.
+   * @return The registered input type or {@link Unresolved} if one could not be found.
+   */
+  static Class<?> resolve(Set<Class<?>> inputTypes, Class<?> type) {
+    for (Class<?> c = type; null != c; c = c.getSuperclass()) {
+      if (inputTypes.contains(c)) {
+        return c;
+      }
+    }
+
+    Queue<Class<?>> interfaces = new ArrayDeque<>();
+    for (Class<?> c = type; null != c; c = c.getSuperclass()) {
+      interfaces.addAll(Arrays.asList(c.getInterfaces()));
+    }
+    Set<Class<?>> visited = new HashSet<>();
+    while (!interfaces.isEmpty()) {
+      Class<?> c = interfaces.poll();
+      if (!visited.add(c)) {
+        continue;
+      }
+      if (inputTypes.contains(c)) {
+        return c;
+      }
+      interfaces.addAll(Arrays.asList(c.getInterfaces()));
+    }
+
+    return Unresolved.class;
+  }
+
+  static List<Encoder> createEncoders() {
+    return Arrays.asList(
         new VarCharStringEncoder(),
+        new VarCharEnumEncoder(),
+        new VarCharUtf8SliceEncoder(),
+        new VarCharByteArrayEncoder(),
+        new VarCharByteBufferEncoder(),
         new VarBinaryByteArrayEncoder(),
         new VarBinaryByteBufferEncoder(),
         new IntegerByteEncoder(),
@@ -44,11 +144,18 @@ public class Encoders {
         new DateUtilDateEncoder(),
         new DateSQLDateEncoder(),
         new CharStringEncoder(),
+        new CharEnumEncoder(),
+        new CharUtf8SliceEncoder(),
+        new CharByteArrayEncoder(),
+        new CharByteBufferEncoder(),
         new BooleanBooleanEncoder(),
         new BinaryByteArrayEncoder(),
         new IntervalDurationEncoder(),
         new IntervalLongEncoder(),
         new NumericBigDecimalEncoder(),
+        new NumericBigIntegerEncoder(),
+        new NumericLongEncoder(),
+        new NumericIntegerEncoder(),
         new TimestampSQLTimestampEncoder(),
         new TimestampUtilDateEncoder(),
         new TimestampLocalDateTimeEncoder(),
@@ -60,20 +167,79 @@ public class Encoders {
         new TimestampTZUtilDateEncoder(),
         new TimeTZOffsetTimeEncoder()
     );
+  }
 
-    this.encoders = ImmutableMap.copyOf(
-        Maps.uniqueIndex(encoders, EncoderKey::of)
-    );
+  final Map<VerticaColumnType, Map<Class<?>, Encoder>> encodersByType;
+
+  public Encoders() {
+    this.encodersByType = new EnumMap<>(VerticaColumnType.class);
+    for (VerticaColumnType columnType : VerticaColumnType.values()) {
+      this.encodersByType.put(columnType, new IdentityHashMap<>());
+    }
 
-    this.encoders.entrySet().stream().forEach(entry -> {
-      log.trace("ctor() - Mapping {} to {}", entry.getKey(), entry.getValue());
-    });
+    for (Encoder encoder : createEncoders()) {
+      log.trace("ctor() - Mapping {}:{} to {}", encoder.columnType(), encoder.inputType().getName(), encoder);
+      final Encoder existing = this.encodersByType.get(encoder.columnType()).put(encoder.inputType(), encoder);
+      if (null != existing) {
+        throw new IllegalStateException(
+            String.format(
+                "Encoder for %s:%s is registered more than once.",
+                encoder.columnType(),
+                encoder.inputType().getName()
+            )
+        );
+      }
+    }
+  }
+
+  private Encoders(Map<VerticaColumnType, Map<Class<?>, Encoder>> encodersByType) {
+    this.encodersByType = encodersByType;
+  }
+
+  /**
+   * Method is used to get encoders for another set of columns. The lookup tables and stateless encoders are shared,
+   * only the types that have an encoder which keeps state get a table of their own.
+   *
+   * @return encoders for another set of columns.
+   */
+  public Encoders copy() {
+    final Map<VerticaColumnType, Map<Class<?>, Encoder>> encodersByType = new EnumMap<>(VerticaColumnType.class);
+    for (Map.Entry<VerticaColumnType, Map<Class<?>, Encoder>> entry : this.encodersByType.entrySet()) {
+      Map<Class<?>, Encoder> byInputType = entry.getValue();
+      for (Map.Entry<Class<?>, Encoder> encoder : entry.getValue().entrySet()) {
+        final Encoder copy = encoder.getValue().copy();
+        if (copy != encoder.getValue()) {
+          if (byInputType == entry.getValue()) {
+            byInputType = new IdentityHashMap<>(entry.getValue());
+          }
+          byInputType.put(encoder.getKey(), copy);
+        }
+      }
+      encodersByType.put(entry.getKey(), byInputType);
+    }
+    return new Encoders(encodersByType);
   }
 
   public Encoder get(VerticaColumnType columnType, Object value) {
     Preconditions.checkNotNull(value, "value cannot be null.");
-    EncoderKey key = EncoderKey.of(value.getClass(), columnType);
-    return this.encoders.get(key);
+    return get(columnType, value.getClass());
+  }
+
+  /**
+   * Method is used to find the encoder for a type. Subclasses and implementations of interfaces use the encoder
+   * registered for the nearest superclass or interface.
+   *
+   * @param columnType Type of the column.
+   * @param inputType  Java type of the value.
+   * @return encoder or null if the type is not supported.
+   */
+  public Encoder get(VerticaColumnType columnType, Class<?> inputType) {
+    Preconditions.checkNotNull(inputType, "inputType cannot be null.");
+    final Class<?> resolved = RESOLVERS.get(columnType).get(inputType);
+    if (Unresolved.class == resolved) {
+      return null;
+    }
+    return this.encodersByType.get(columnType).get(resolved);
   }
 
 }
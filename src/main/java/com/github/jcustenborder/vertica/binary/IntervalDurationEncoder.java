@@ -45,7 +45,7 @@ class IntervalDurationEncoder extends Encoder<Duration> {
       int scale
   ) {
     log.trace("input = {}", input);
-    final long micros = 1000L * input.toMillis();
+    final long micros = Math.addExact(Math.multiplyExact(input.getSeconds(), 1000000L), input.getNano() / 1000);
     buffer.putLong(micros);
   }
 }
@@ -16,17 +16,11 @@
 package com.github.jcustenborder.vertica.binary;
 
 import com.github.jcustenborder.vertica.VerticaColumnType;
-import com.google.common.base.Preconditions;
+
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Arrays;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 class NumericBigDecimalEncoder extends Encoder<BigDecimal> {
-  private static final Logger log = LoggerFactory.getLogger(NumericBigDecimalEncoder.class);
 
   @Override
   public VerticaColumnType columnType() {
@@ -38,18 +32,7 @@ class NumericBigDecimalEncoder extends Encoder<BigDecimal> {
     return BigDecimal.class;
   }
 
-  private void littleEndianPut(ByteBuffer byteBuffer, byte[] src) {
-    for (int i = src.length - 1; i >= 0; i--) {
-      byteBuffer.put(src[i]);
-    }
-  }
-
-  private void negate(byte[] bytes, int head) {
-    for (int i = 0; i < head; i++) {
-      bytes[i] ^= 0xFF;
-    }
-  }
-
+  @Override
   public void encode(
       ByteBuffer buffer,
       BigDecimal input,
@@ -58,49 +41,6 @@ class NumericBigDecimalEncoder extends Encoder<BigDecimal> {
       int precision,
       int scale
   ) {
-    /*
-    This method needs some love. I'm not super familiar with what is going on here but I'm getting a correct value
-    based on the document
-     */
-    log.trace("input = {}", input);
-
-    // scale it aptly
-    BigInteger unscaled = input
-        .multiply(BigDecimal.valueOf(Math.pow(10, scale)))
-        .toBigInteger();
-    byte[] unscaledBuffer = unscaled.toByteArray();
-    final int bufLen = unscaledBuffer.length;
-
-    Preconditions.checkArgument(
-        bufLen <= size && input.precision() - input.scale() <= precision - scale,
-        "Value (%s) exceeds range of type numeric(%s,%s).",
-        name,
-        precision,
-        scale
-    );
-
-    ByteBuffer byteBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
-
-    // pad the input bytes
-    byte[] paddedInput = new byte[size];
-    System.arraycopy(unscaledBuffer, 0, paddedInput, size - bufLen, bufLen);
-
-    log.trace("bufferSize:{}", size);
-
-    // if negative value, take 2's complement
-    if (input.signum() < 0) {
-      negate(paddedInput, size - bufLen);
-    }
-
-    // go in chunks, each chunk being put as LE
-    for (int k = 0; k < size / 8; k++) {
-      // create an 8 byte word chunk
-      byte[] chunk = Arrays.copyOfRange(paddedInput, k * 8, (k + 1) * 8);
-      // put the chunk in LE fashion
-      littleEndianPut(byteBuffer, chunk);
-    }
-
-    byteBuffer.flip();
-    buffer.put(byteBuffer);
+    NumericEncoding.putDecimal(buffer, input, name, size, precision, scale);
   }
 }
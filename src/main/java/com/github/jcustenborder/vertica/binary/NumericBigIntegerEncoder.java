@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import com.github.jcustenborder.vertica.VerticaColumnType;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+class NumericBigIntegerEncoder extends Encoder<BigInteger> {
+
+  @Override
+  public VerticaColumnType columnType() {
+    return VerticaColumnType.NUMERIC;
+  }
+
+  @Override
+  public Class<BigInteger> inputType() {
+    return BigInteger.class;
+  }
+
+  @Override
+  public void encode(
+      ByteBuffer buffer,
+      BigInteger input,
+      String name,
+      int size,
+      int precision,
+      int scale
+  ) {
+    if (input.bitLength() < Long.SIZE) {
+      NumericEncoding.putLong(buffer, input.longValue(), name, size, precision, scale);
+    } else {
+      NumericEncoding.putUnscaled(buffer, input.multiply(BigInteger.TEN.pow(scale)), name, size, precision, scale);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+/**
+ * Class is used to write NUMERIC values. A NUMERIC value is the unscaled value as a two's complement integer of
+ * {@code size} bytes, written as 8 byte words starting with the most significant word. Each word is little endian.
+ * Unscaled values that fit in a long are written without creating a {@link BigInteger}.
+ */
+final class NumericEncoding {
+  static final int MAX_LONG_PRECISION = 18;
+  static final long[] POWERS_OF_TEN = new long[MAX_LONG_PRECISION + 1];
+
+  static {
+    long power = 1L;
+    for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = power;
+      power *= 10L;
+    }
+  }
+
+  private NumericEncoding() {
+
+  }
+
+  static IllegalArgumentException outOfRange(Object unscaled, String name, int precision, int scale) {
+    return new IllegalArgumentException(
+        String.format(
+            "Unscaled value (%s) for column '%s' exceeds range of type numeric(%s,%s).",
+            unscaled,
+            name,
+            precision,
+            scale
+        )
+    );
+  }
+
+  /**
+   * Method is used to check if a value can be multiplied by a power of ten without overflowing a long.
+   *
+   * @param value value to multiply.
+   * @param power power of ten.
+   * @return true if the product fits in a long.
+   */
+  static boolean fits(long value, long power) {
+    final long max = Long.MAX_VALUE / power;
+    return value <= max && value >= -max;
+  }
+
+  /**
+   * Method is used to write an unscaled value that fits in a long.
+   *
+   * @param buffer    buffer to write to.
+   * @param unscaled  unscaled value.
+   * @param name      name of the column.
+   * @param size      size of the column.
+   * @param precision precision of the column.
+   * @param scale     scale of the column.
+   */
+  static void putUnscaled(ByteBuffer buffer, long unscaled, String name, int size, int precision, int scale) {
+    if (precision <= MAX_LONG_PRECISION) {
+      final long limit = POWERS_OF_TEN[precision];
+      if (unscaled >= limit || unscaled <= -limit) {
+        throw outOfRange(unscaled, name, precision, scale);
+      }
+    }
+    final long extension = unscaled < 0 ? -1L : 0L;
+    for (int word = size / 8; word > 1; word--) {
+      buffer.putLong(extension);
+    }
+    buffer.putLong(unscaled);
+  }
+
+  /**
+   * Method is used to write an unscaled value.
+   *
+   * @param buffer    buffer to write to.
+   * @param unscaled  unscaled value.
+   * @param name      name of the column.
+   * @param size      size of the column.
+   * @param precision precision of the column.
+   * @param scale     scale of the column.
+   */
+  static void putUnscaled(ByteBuffer buffer, BigInteger unscaled, String name, int size, int precision, int scale) {
+    if (unscaled.bitLength() < Long.SIZE) {
+      putUnscaled(buffer, unscaled.longValue(), name, size, precision, scale);
+      return;
+    }
+    if (unscaled.bitLength() >= size * 8 || unscaled.abs().compareTo(BigInteger.TEN.pow(precision)) >= 0) {
+      throw outOfRange(unscaled, name, precision, scale);
+    }
+
+    final byte[] bytes = unscaled.toByteArray();
+    final long extension = unscaled.signum() < 0 ? -1L : 0L;
+    // Index in bytes of the first byte of the most significant word, which is negative when the word is padded.
+    int offset = bytes.length - size;
+    for (int word = 0; word < size / 8; word++, offset += 8) {
+      long value = 0L;
+      for (int i = offset; i < offset + 8; i++) {
+        value = (value << 8) | (i < 0 ? extension & 0xFF : bytes[i] & 0xFF);
+      }
+      buffer.putLong(value);
+    }
+  }
+
+  /**
+   * Method is used to write an integral value.
+   *
+   * @param buffer    buffer to write to.
+   * @param input     value to write.
+   * @param name      name of the column.
+   * @param size      size of the column.
+   * @param precision precision of the column.
+   * @param scale     scale of the column.
+   */
+  static void putLong(ByteBuffer buffer, long input, String name, int size, int precision, int scale) {
+    if (scale <= MAX_LONG_PRECISION) {
+      final long power = POWERS_OF_TEN[scale];
+      if (fits(input, power)) {
+        putUnscaled(buffer, input * power, name, size, precision, scale);
+        return;
+      }
+    }
+    putUnscaled(buffer, BigInteger.valueOf(input).multiply(BigInteger.TEN.pow(scale)), name, size, precision, scale);
+  }
+
+  /**
+   * Method is used to write a decimal value. Digits beyond the scale of the column are truncated. Values with a
+   * precision of 18 or less are scaled with long arithmetic, which avoids {@link BigInteger} but not every
+   * allocation. {@link BigDecimal} has no public accessor for its compact unscaled long, so a value with a scale
+   * greater than zero still creates one compact {@link BigDecimal} to read it. Values with a scale of zero do not
+   * allocate.
+   *
+   * @param buffer    buffer to write to.
+   * @param input     value to write.
+   * @param name      name of the column.
+   * @param size      size of the column.
+   * @param precision precision of the column.
+   * @param scale     scale of the column.
+   */
+  static void putDecimal(ByteBuffer buffer, BigDecimal input, String name, int size, int precision, int scale) {
+    final int inputScale = input.scale();
+    if (input.precision() <= MAX_LONG_PRECISION && inputScale >= 0) {
+      // Moving the point to a scale of zero returns a compact BigDecimal, or this when the scale is already zero.
+      // unscaledValue() would create a BigInteger and its magnitude array instead.
+      final long inputUnscaled = input.movePointRight(inputScale).longValueExact();
+      if (inputScale >= scale) {
+        final int shift = inputScale - scale;
+        if (shift <= MAX_LONG_PRECISION) {
+          putUnscaled(buffer, inputUnscaled / POWERS_OF_TEN[shift], name, size, precision, scale);
+        } else {
+          putUnscaled(buffer, 0L, name, size, precision, scale);
+        }
+        return;
+      }
+      final int shift = scale - inputScale;
+      if (shift <= MAX_LONG_PRECISION) {
+        final long power = POWERS_OF_TEN[shift];
+        if (fits(inputUnscaled, power)) {
+          putUnscaled(buffer, inputUnscaled * power, name, size, precision, scale);
+          return;
+        }
+      }
+    }
+    putUnscaled(buffer, input.setScale(scale, RoundingMode.DOWN).unscaledValue(), name, size, precision, scale);
+  }
+}
@@ -27,4 +27,9 @@ class TimeSQLDateEncoder extends UTCTimeEncoder<Date> {
   protected long utcTime(Date input) {
     return input.getTime();
   }
+
+  @Override
+  public TimeSQLDateEncoder copy() {
+    return new TimeSQLDateEncoder();
+  }
 }
@@ -27,5 +27,9 @@ class TimeSQLTimeEncoder extends UTCTimeEncoder<Time> {
   protected long utcTime(Time input) {
     return input.getTime();
   }
-}
 
+  @Override
+  public TimeSQLTimeEncoder copy() {
+    return new TimeSQLTimeEncoder();
+  }
+}
@@ -27,4 +27,9 @@ class TimeUtilDateEncoder extends UTCTimeEncoder<Date> {
   protected long utcTime(Date input) {
     return input.getTime();
   }
+
+  @Override
+  public TimeUtilDateEncoder copy() {
+    return new TimeUtilDateEncoder();
+  }
 }
@@ -16,7 +16,7 @@
 package com.github.jcustenborder.vertica.binary;
 
 import java.time.LocalDateTime;
-import java.util.Date;
+import java.time.ZoneOffset;
 
 class TimestampLocalDateTimeEncoder extends UTCTimestampEncoder<LocalDateTime> {
   @Override
@@ -26,7 +26,11 @@ class TimestampLocalDateTimeEncoder extends UTCTimestampEncoder<LocalDateTime> {
 
   @Override
   protected long utcTime(LocalDateTime input) {
-    Date utcDate = Date.from(input.atZone(TIME_ZONE_UTC_ZONEID).toInstant());
-    return utcDate.getTime();
+    return Math.floorDiv(utcMicros(input), 1000L);
+  }
+
+  @Override
+  protected long utcMicros(LocalDateTime input) {
+    return epochMicros(input.toEpochSecond(ZoneOffset.UTC), input.getNano());
   }
 }
@@ -27,4 +27,9 @@ class TimestampSQLTimestampEncoder extends UTCTimestampEncoder<Timestamp> {
   protected long utcTime(Timestamp input) {
     return input.getTime();
   }
+
+  @Override
+  protected long utcMicros(Timestamp input) {
+    return epochMicros(Math.floorDiv(input.getTime(), 1000L), input.getNanos());
+  }
 }
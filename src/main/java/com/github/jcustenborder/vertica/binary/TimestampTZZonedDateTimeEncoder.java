@@ -15,7 +15,6 @@
  */
 package com.github.jcustenborder.vertica.binary;
 
-import java.sql.Date;
 import java.time.ZonedDateTime;
 
 class TimestampTZZonedDateTimeEncoder extends UTCTimestampTZEncoder<ZonedDateTime> {
@@ -26,6 +25,11 @@ class TimestampTZZonedDateTimeEncoder extends UTCTimestampTZEncoder<ZonedDateTim
 
   @Override
   protected long utcTime(ZonedDateTime input) {
-    return Date.from(input.toInstant()).getTime();
+    return Math.floorDiv(utcMicros(input), 1000L);
+  }
+
+  @Override
+  protected long utcMicros(ZonedDateTime input) {
+    return UTCTimestampEncoder.epochMicros(input.toEpochSecond(), input.getNano());
   }
 }
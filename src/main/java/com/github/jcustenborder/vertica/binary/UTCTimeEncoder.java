@@ -35,6 +35,14 @@ public abstract class UTCTimeEncoder<T> extends Encoder<T> {
 
   protected abstract long utcTime(T input);
 
+  /**
+   * The calendar is updated for every value, so each set of columns needs its own instance.
+   *
+   * @return new instance of the encoder.
+   */
+  @Override
+  public abstract UTCTimeEncoder<T> copy();
+
   @Override
   public void encode(
       ByteBuffer buffer,
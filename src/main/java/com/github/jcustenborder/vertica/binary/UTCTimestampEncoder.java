@@ -38,6 +38,28 @@ public abstract class UTCTimestampEncoder<T> extends Encoder<T> {
 
   protected abstract long utcTime(T input);
 
+  /**
+   * Method is used to return the number of microseconds since 1970-01-01T00:00:00Z. Input types that carry
+   * sub-millisecond precision override this so it is not lost.
+   *
+   * @param input value to convert.
+   * @return microseconds since 1970-01-01T00:00:00Z.
+   */
+  protected long utcMicros(T input) {
+    return utcTime(input) * 1000L;
+  }
+
+  /**
+   * Method is used to convert seconds and nanoseconds since 1970-01-01T00:00:00Z to microseconds.
+   *
+   * @param epochSecond seconds since 1970-01-01T00:00:00Z.
+   * @param nano        nanoseconds within the second.
+   * @return microseconds since 1970-01-01T00:00:00Z.
+   */
+  static long epochMicros(long epochSecond, int nano) {
+    return Math.addExact(Math.multiplyExact(epochSecond, 1000000L), nano / 1000);
+  }
+
   @Override
   public void encode(
       ByteBuffer buffer,
@@ -48,8 +70,7 @@ public abstract class UTCTimestampEncoder<T> extends Encoder<T> {
       int scale
   ) {
     log.trace("input = {}", input);
-    long utcTime = utcTime(input);
-    long storage = (utcTime * 1000L - Constants.THEIR_EPOCH_MICRO);
+    long storage = utcMicros(input) - Constants.THEIR_EPOCH_MICRO;
     log.trace("storage = {}", storage);
     buffer.putLong(storage);
   }
@@ -38,6 +38,17 @@ public abstract class UTCTimestampTZEncoder<T> extends Encoder<T> {
 
   protected abstract long utcTime(T input);
 
+  /**
+   * Method is used to return the number of microseconds since 1970-01-01T00:00:00Z. Input types that carry
+   * sub-millisecond precision override this so it is not lost.
+   *
+   * @param input value to convert.
+   * @return microseconds since 1970-01-01T00:00:00Z.
+   */
+  protected long utcMicros(T input) {
+    return utcTime(input) * 1000L;
+  }
+
   @Override
   public void encode(
       ByteBuffer buffer,
@@ -48,8 +59,7 @@ public abstract class UTCTimestampTZEncoder<T> extends Encoder<T> {
       int scale
   ) {
     log.trace("input = {}", input);
-    long utcTime = utcTime(input);
-    long storage = (utcTime * 1000L - Constants.THEIR_EPOCH_MICRO);
+    long storage = utcMicros(input) - Constants.THEIR_EPOCH_MICRO;
     log.trace("storage = {}", storage);
     buffer.putLong(storage);
   }
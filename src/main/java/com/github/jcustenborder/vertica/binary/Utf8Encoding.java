@@ -0,0 +1,286 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Class is used to write strings as UTF-8 directly into a buffer without an intermediate array. Leading ASCII and
+ * Latin-1 characters take a fast path, written straight into the backing array of a heap buffer or copied in chunks
+ * to a direct buffer. Unpaired surrogates are replaced with '?', the same as
+ * {@link java.nio.charset.Charset#encode(String)}. If the buffer fills up a {@link BufferOverflowException} is
+ * thrown so the writer can grow the row buffer and encode the row again. Values that are already UTF-8 are copied
+ * without being decoded.
+ */
+final class Utf8Encoding {
+  static final byte REPLACEMENT = (byte) '?';
+  static final int MAX_BYTES_PER_CHAR = 3;
+  private static final byte[] ZEROS = new byte[1024];
+  /**
+   * Characters encoded per chunk for a direct buffer. A Latin-1 character takes two bytes.
+   */
+  static final int CHUNK_CHARS = 256;
+  private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_CHARS * 2]);
+
+  private Utf8Encoding() {
+
+  }
+
+  /**
+   * Method is used to write a string as UTF-8 at the position of the buffer.
+   *
+   * @param buffer buffer to write to.
+   * @param input  string to write.
+   * @return number of bytes written.
+   */
+  static int put(ByteBuffer buffer, String input) {
+    final int length = input.length();
+    final int start = buffer.position();
+    if (buffer.limit() - start < length) {
+      throw new BufferOverflowException();
+    }
+
+    final int i = buffer.hasArray() ? putArray(buffer, input) : putDirect(buffer, input);
+    if (i < length) {
+      putSlow(buffer, input, i);
+    }
+    return buffer.position() - start;
+  }
+
+  /**
+   * Method is used to write the leading ASCII and Latin-1 characters of a string straight into the array backing the
+   * buffer. The caller has already checked that there is room for one byte per character.
+   *
+   * @param buffer heap buffer to write to.
+   * @param input  string to write.
+   * @return index of the first character that was not written.
+   */
+  static int putArray(ByteBuffer buffer, String input) {
+    final byte[] array = buffer.array();
+    final int offset = buffer.arrayOffset();
+    final int limit = buffer.limit();
+    final int length = input.length();
+    int position = buffer.position();
+    int i = 0;
+    for (; i < length; i++) {
+      final char c = input.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      array[offset + position++] = (byte) c;
+    }
+    for (; i < length; i++) {
+      final char c = input.charAt(i);
+      if (c < 0x80) {
+        if (position == limit) {
+          throw new BufferOverflowException();
+        }
+        array[offset + position++] = (byte) c;
+      } else if (c < 0x100) {
+        if (limit - position < 2) {
+          throw new BufferOverflowException();
+        }
+        array[offset + position++] = (byte) (0xC0 | (c >> 6));
+        array[offset + position++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        break;
+      }
+    }
+    buffer.position(position);
+    return i;
+  }
+
+  /**
+   * Method is used to write the leading ASCII and Latin-1 characters of a string to a direct buffer. Characters are
+   * encoded into a small per thread chunk which is copied with one bulk put, instead of one put per byte.
+   *
+   * @param buffer direct buffer to write to.
+   * @param input  string to write.
+   * @return index of the first character that was not written.
+   */
+  static int putDirect(ByteBuffer buffer, String input) {
+    final byte[] chunk = CHUNK.get();
+    final int length = input.length();
+    int i = 0;
+    while (i < length) {
+      final int end = Math.min(length, i + CHUNK_CHARS);
+      int count = 0;
+      for (; i < end; i++) {
+        final char c = input.charAt(i);
+        if (c < 0x80) {
+          chunk[count++] = (byte) c;
+        } else if (c < 0x100) {
+          chunk[count++] = (byte) (0xC0 | (c >> 6));
+          chunk[count++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+          break;
+        }
+      }
+      buffer.put(chunk, 0, count);
+      if (i < end) {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Method is used to write the rest of a string that contains characters outside of ASCII.
+   *
+   * @param buffer buffer to write to.
+   * @param input  string to write.
+   * @param from   index of the first character to write.
+   */
+  static void putSlow(ByteBuffer buffer, String input, int from) {
+    final int length = input.length();
+    for (int i = from; i < length; i++) {
+      final char c = input.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        if (buffer.remaining() < 2) {
+          throw new BufferOverflowException();
+        }
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (Character.isSurrogate(c)) {
+        final char low = i + 1 < length ? input.charAt(i + 1) : 0;
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+          if (buffer.remaining() < 4) {
+            throw new BufferOverflowException();
+          }
+          final int codePoint = Character.toCodePoint(c, low);
+          buffer.put((byte) (0xF0 | (codePoint >> 18)));
+          buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+          buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+          buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+          i++;
+        } else {
+          buffer.put(REPLACEMENT);
+        }
+      } else {
+        if (buffer.remaining() < MAX_BYTES_PER_CHAR) {
+          throw new BufferOverflowException();
+        }
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Method is used to write zeros at the position of the buffer.
+   *
+   * @param buffer buffer to write to.
+   * @param count  number of zeros to write.
+   */
+  static void pad(ByteBuffer buffer, int count) {
+    if (count <= 0) {
+      return;
+    }
+    if (buffer.remaining() < count) {
+      throw new BufferOverflowException();
+    }
+    if (buffer.hasArray()) {
+      final int from = buffer.arrayOffset() + buffer.position();
+      Arrays.fill(buffer.array(), from, from + count, (byte) 0);
+      buffer.position(buffer.position() + count);
+      return;
+    }
+    while (count > 0) {
+      final int length = Math.min(count, ZEROS.length);
+      buffer.put(ZEROS, 0, length);
+      count -= length;
+    }
+  }
+
+  /**
+   * Method is used to write a range of an array that already contains UTF-8 to a VARCHAR column.
+   *
+   * @param buffer buffer to write to.
+   * @param input  array containing the value.
+   * @param offset offset of the value in the array.
+   * @param length length of the value in bytes.
+   */
+  static void putVarChar(ByteBuffer buffer, byte[] input, int offset, int length) {
+    buffer.putInt(length);
+    buffer.put(input, offset, length);
+  }
+
+  /**
+   * Method is used to write a range of an array that already contains UTF-8 to a CHAR column. The value is padded
+   * to the size of the column.
+   *
+   * @param buffer buffer to write to.
+   * @param input  array containing the value.
+   * @param offset offset of the value in the array.
+   * @param length length of the value in bytes.
+   * @param name   name of the column.
+   * @param size   size of the column.
+   */
+  static void putChar(ByteBuffer buffer, byte[] input, int offset, int length, String name, int size) {
+    checkCharLength(length, name, size);
+    buffer.put(input, offset, length);
+    pad(buffer, size - length);
+  }
+
+  /**
+   * Method is used to write the remaining bytes of a buffer that already contains UTF-8 to a VARCHAR column. The
+   * position of the input is not changed so the value can be written again if the row is retried.
+   *
+   * @param buffer buffer to write to.
+   * @param input  buffer containing the value.
+   */
+  static void putVarChar(ByteBuffer buffer, ByteBuffer input) {
+    buffer.putInt(input.remaining());
+    copy(buffer, input);
+  }
+
+  /**
+   * Method is used to write the remaining bytes of a buffer that already contains UTF-8 to a CHAR column. The value
+   * is padded to the size of the column. The position of the input is not changed.
+   *
+   * @param buffer buffer to write to.
+   * @param input  buffer containing the value.
+   * @param name   name of the column.
+   * @param size   size of the column.
+   */
+  static void putChar(ByteBuffer buffer, ByteBuffer input, String name, int size) {
+    final int length = input.remaining();
+    checkCharLength(length, name, size);
+    copy(buffer, input);
+    pad(buffer, size - length);
+  }
+
+  static void copy(ByteBuffer buffer, ByteBuffer input) {
+    if (input.hasArray()) {
+      buffer.put(input.array(), input.arrayOffset() + input.position(), input.remaining());
+    } else {
+      buffer.put(input.duplicate());
+    }
+  }
+
+  static void checkCharLength(int length, String name, int size) {
+    if (size < length) {
+      throw new IllegalStateException(
+          String.format("Encoded value for '%s' is %s byte(s) but the column is only %s byte(s).", name, length, size)
+      );
+    }
+  }
+}
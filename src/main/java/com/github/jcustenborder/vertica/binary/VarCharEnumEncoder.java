@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import com.github.jcustenborder.vertica.VerticaColumnType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+class VarCharEnumEncoder extends Encoder<Enum> {
+  private static final Logger log = LoggerFactory.getLogger(VarCharEnumEncoder.class);
+
+  @Override
+  public VerticaColumnType columnType() {
+    return VerticaColumnType.VARCHAR;
+  }
+
+  @Override
+  public Class<Enum> inputType() {
+    return Enum.class;
+  }
+
+  @Override
+  public void encode(
+      ByteBuffer buffer,
+      Enum input,
+      String name,
+      int size,
+      int precision,
+      int scale
+  ) {
+    log.trace("input = {}", input);
+    // Reserve the length prefix and set it once the length of the encoded value is known.
+    final int lengthPosition = buffer.position();
+    buffer.putInt(0);
+    final int length = Utf8Encoding.put(buffer, input.name());
+    buffer.putInt(lengthPosition, length);
+  }
+}
@@ -16,7 +16,6 @@
 package com.github.jcustenborder.vertica.binary;
 
 import com.github.jcustenborder.vertica.VerticaColumnType;
-import com.google.common.base.Charsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +44,10 @@ class VarCharStringEncoder extends Encoder<String> {
       int scale
   ) {
     log.trace("input = {}", input);
-    ByteBuffer valueBuffer = Charsets.UTF_8.encode(input);
-    log.trace("writing {} byte(s).", valueBuffer.remaining());
-    buffer.putInt(valueBuffer.remaining());
-    buffer.put(valueBuffer);
+    // Reserve the length prefix and set it once the length of the encoded value is known.
+    final int lengthPosition = buffer.position();
+    buffer.putInt(0);
+    final int length = Utf8Encoding.put(buffer, input);
+    buffer.putInt(lengthPosition, length);
   }
 }
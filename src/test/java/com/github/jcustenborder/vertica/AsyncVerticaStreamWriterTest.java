@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncVerticaStreamWriterTest {
+
+  VerticaStreamWriterBuilder builder() {
+    return new VerticaStreamWriterBuilder()
+        .table("async")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR)
+        .column("ACTIVE", VerticaColumnType.BOOLEAN);
+  }
+
+  void writeRows(VerticaStreamWriter writer) throws IOException {
+    for (int i = 0; i < 1000; i++) {
+      writer.write(new Object[]{(long) i, i % 3 == 0 ? null : "value" + i, i % 2 == 0});
+    }
+    VerticaRow row = writer.newRow();
+    for (int i = 0; i < 100; i++) {
+      row.setLong(0, i);
+      row.setObject(1, "row" + i);
+      row.setBoolean(2, true);
+      writer.commit(row);
+    }
+    final long[] ids = new long[10];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i;
+    }
+    ColumnBatch batch = new ColumnBatch(3)
+        .rowCount(ids.length)
+        .longs(0, ids)
+        .objects(1, new Object[ids.length])
+        .booleans(2, new boolean[ids.length]);
+    writer.writeBatch(batch);
+    writer.write(new Object[]{-1L, "last", false});
+  }
+
+  @Test
+  public void matchesSynchronousWriter() throws IOException {
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder().build(expected)) {
+      writeRows(writer);
+    }
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder().asyncQueueSize(16).buildAsync(actual)) {
+      writeRows(writer);
+    }
+    assertEquals(
+        BaseEncoding.base16().encode(expected.toByteArray()),
+        BaseEncoding.base16().encode(actual.toByteArray())
+    );
+  }
+
+  static class BlockingOutputStream extends FilterOutputStream {
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile boolean blocking;
+
+    BlockingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      try {
+        if (this.blocking) {
+          this.latch.await();
+        }
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      this.out.write(b, off, len);
+    }
+  }
+
+  @Test
+  public void backpressure() throws Exception {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final BlockingOutputStream blockingOutputStream = new BlockingOutputStream(outputStream);
+    try (AsyncVerticaStreamWriter writer = builder().asyncQueueSize(4).buildAsync(blockingOutputStream)) {
+      final int headerSize = outputStream.size();
+      blockingOutputStream.blocking = true;
+      final long started = System.nanoTime();
+      for (int i = 0; i < 4; i++) {
+        writer.write(new Object[]{(long) i, "value", true});
+      }
+      assertTrue(
+          TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 5,
+          "writes should not wait for the stream while there is capacity."
+      );
+      assertEquals(headerSize, outputStream.size());
+      blockingOutputStream.latch.countDown();
+      writer.flushAsync().get(10, TimeUnit.SECONDS);
+      assertTrue(outputStream.size() > headerSize, "rows should be written after the stream is unblocked.");
+    }
+  }
+
+  @Test
+  public void tryWriteWhenFull() throws Exception {
+    final BlockingOutputStream outputStream = new BlockingOutputStream(new ByteArrayOutputStream());
+    try (AsyncVerticaStreamWriter writer = builder().asyncQueueSize(2).buildAsync(outputStream)) {
+      outputStream.blocking = true;
+      int queued = 0;
+      while (writer.tryWrite(new Object[]{(long) queued, "value", true})) {
+        queued++;
+        assertTrue(queued <= 3, "queue should be bounded.");
+      }
+      assertFalse(writer.awaitCapacity(50, TimeUnit.MILLISECONDS));
+      final CompletableFuture<Void> flush = writer.flushAsync();
+      assertFalse(flush.isDone());
+      outputStream.latch.countDown();
+      assertTrue(writer.awaitCapacity(10, TimeUnit.SECONDS));
+      flush.get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void failure() throws Exception {
+    final OutputStream outputStream = new FilterOutputStream(new ByteArrayOutputStream()) {
+      int writes;
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        if (this.writes++ > 0) {
+          throw new IOException("sink failed");
+        }
+        this.out.write(b, off, len);
+      }
+    };
+    final AsyncVerticaStreamWriter writer = builder().buildAsync(outputStream);
+    writer.write(new Object[]{1L, "value", true});
+    final CompletableFuture<Void> flush = writer.flushAsync();
+    ExecutionException exception = assertThrows(ExecutionException.class, () -> flush.get(10, TimeUnit.SECONDS));
+    assertEquals("sink failed", exception.getCause().getMessage());
+    assertThrows(IOException.class, () -> writer.write(new Object[]{2L, "value", true}));
+    assertThrows(IOException.class, writer::close);
+  }
+}
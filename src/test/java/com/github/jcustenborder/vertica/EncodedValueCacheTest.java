@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EncodedValueCacheTest {
+  enum Status {
+    ACTIVE,
+    DISABLED
+  }
+
+  static final String[] CODES = {"US", "CA", "MX", "ÉU"};
+
+  VerticaStreamWriterBuilder builder() {
+    return new VerticaStreamWriterBuilder()
+        .table("codes")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("CODE", VerticaColumnType.VARCHAR)
+        .column("COUNTRY", VerticaColumnType.CHAR, 4)
+        .column("STATUS", VerticaColumnType.VARCHAR, String.class);
+  }
+
+  byte[] write(VerticaStreamWriterBuilder builder, int rows) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(outputStream)) {
+      for (int i = 0; i < rows; i++) {
+        final String code = CODES[i % CODES.length];
+        writer.write(new Object[]{(long) i, code, code, i % 3 == 0 ? null : Status.values()[i % 2].name()});
+      }
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Test
+  public void matchesUncached() throws IOException {
+    final VerticaStreamWriterBuilder cached = builder()
+        .encodedValueCache("CODE", 16)
+        .encodedValueCache("COUNTRY", 16)
+        .encodedValueCache("STATUS", 16);
+    assertArrayEquals(write(builder(), 100), write(cached, 100));
+
+    final VerticaColumnInfo code = cached.columnInfos.get(1);
+    assertEquals(4, code.cacheMisses());
+    assertEquals(96, code.cacheHits());
+    final VerticaColumnInfo status = cached.columnInfos.get(3);
+    assertEquals(2, status.cacheMisses());
+    assertEquals(64, status.cacheHits());
+    assertEquals(0, cached.columnInfos.get(0).cacheHits());
+  }
+
+  @Test
+  public void matchesUncachedPipelined() throws IOException {
+    final VerticaStreamWriterBuilder cached = builder()
+        .encoderThreads(2)
+        .encoderChunkSize(10)
+        .encodedValueCache("CODE", 2);
+    assertArrayEquals(write(builder(), 100), write(cached, 100));
+    final VerticaColumnInfo code = cached.columnInfos.get(1);
+    assertEquals(100, code.cacheHits() + code.cacheMisses());
+  }
+
+  @Test
+  public void retriedRowsCountedOnce() throws IOException {
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("codes")
+        .column("CODE", VerticaColumnType.VARCHAR)
+        .column("PAYLOAD", VerticaColumnType.VARCHAR)
+        .bufferAllocator(BufferAllocator.HEAP)
+        .rowBufferSize(128)
+        .encodedValueCache("CODE", 16);
+    final StringBuilder payload = new StringBuilder();
+    try (VerticaStreamWriter writer = builder.build(new ByteArrayOutputStream())) {
+      for (int i = 0; i < 64; i++) {
+        payload.append("0123456789");
+        writer.write(new Object[]{CODES[i % 3], payload.toString()});
+      }
+    }
+    final VerticaColumnInfo code = builder.columnInfos.get(0);
+    assertEquals(64, code.cacheHits() + code.cacheMisses(), "rows that grow the row buffer should be counted once.");
+  }
+
+  @Test
+  public void rollingCountsCommittedRows() throws IOException {
+    final VerticaStreamWriterBuilder builder = builder()
+        .encodedValueCache("CODE", 16)
+        .rollingMaxRows(10);
+    final RollingVerticaStreamWriterTest.Parts parts = new RollingVerticaStreamWriterTest.Parts();
+    try (RollingVerticaStreamWriter writer = builder.buildRolling(parts, parts)) {
+      for (int i = 0; i < 40; i++) {
+        final String code = CODES[i % CODES.length];
+        if (i % 2 == 0) {
+          writer.write(new Object[]{(long) i, code, code, null});
+        } else {
+          writer.commit(writer.newRow().setLong(0, i).setObject(1, code).setObject(2, code).setNull(3));
+        }
+      }
+    }
+    assertEquals(4, parts.parts.size());
+    final VerticaColumnInfo code = builder.columnInfos.get(1);
+    assertEquals(CODES.length, code.cacheMisses(), "the cache should stay warm across parts.");
+    assertEquals(40 - CODES.length, code.cacheHits());
+  }
+
+  @Test
+  public void separateWritersSeparateCaches() throws IOException {
+    final VerticaStreamWriterBuilder builder = builder().encodedValueCache("CODE", 16);
+    try (VerticaNativeStreamWriter first = (VerticaNativeStreamWriter) builder.build(new ByteArrayOutputStream());
+         VerticaNativeStreamWriter second = (VerticaNativeStreamWriter) builder.build(new ByteArrayOutputStream())) {
+      assertNotSame(first.columns.get(1).valueCache, second.columns.get(1).valueCache);
+      assertNotSame(builder.columnInfos.get(1).valueCache, first.columns.get(1).valueCache);
+      first.write(new Object[]{1L, "US", "US", null});
+      assertEquals(1, first.columns.get(1).valueCache.entries.size());
+      assertEquals(0, second.columns.get(1).valueCache.entries.size());
+    }
+  }
+
+  @Test
+  public void eviction() {
+    final VerticaColumnInfo columnInfo = new VerticaColumnInfo(
+        "CODE", VerticaColumnType.VARCHAR, -1, -1, -1, null, new EncodedValueCache(2)
+    );
+    final ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    columnInfo.encode(buffer, "a");
+    columnInfo.encode(buffer, "b");
+    columnInfo.encode(buffer, "a");
+    columnInfo.encode(buffer, "c");
+    columnInfo.encode(buffer, "a");
+    columnInfo.encode(buffer, "b");
+    assertEquals(2, columnInfo.cacheHits());
+    assertEquals(4, columnInfo.cacheMisses());
+    assertEquals(2, columnInfo.valueCache.entries.size());
+  }
+
+  @Test
+  public void enumValues() {
+    final VerticaColumnInfo expected = new VerticaColumnInfo("STATUS", VerticaColumnType.CHAR, 8);
+    final VerticaColumnInfo cached = new VerticaColumnInfo(expected, new EncodedValueCache(4));
+    final ByteBuffer expectedBuffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    final ByteBuffer actualBuffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 4; i++) {
+      expected.encode(expectedBuffer, Status.values()[i % 2].name());
+      cached.encode(actualBuffer, Status.values()[i % 2]);
+    }
+    assertArrayEquals(expectedBuffer.array(), actualBuffer.array());
+    assertEquals(2, cached.cacheHits());
+  }
+
+  @Test
+  public void unsupportedType() {
+    assertThrows(IllegalStateException.class, () -> builder()
+        .column("VALUE", VerticaColumnType.FLOAT)
+        .encodedValueCache("VALUE", 16));
+    assertThrows(IllegalStateException.class, () -> builder().encodedValueCache("MISSING", 16));
+    assertThrows(IllegalStateException.class, () -> builder().encodedValueCache("CODE", 0));
+  }
+}
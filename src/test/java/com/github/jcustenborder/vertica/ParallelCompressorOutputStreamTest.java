@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import io.airlift.compress.zstd.ZstdInputStream;
+import org.anarres.lzo.LzoAlgorithm;
+import org.anarres.lzo.LzoInputStream;
+import org.anarres.lzo.LzoLibrary;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class ParallelCompressorOutputStreamTest {
+
+  byte[] write(VerticaStreamWriterBuilder builder) throws IOException {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        for (int i = 0; i < 5000; i++) {
+          streamWriter.write(new Object[]{(long) i, i % 3 == 0 ? null : "value" + i});
+        }
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  VerticaStreamWriterBuilder builder() {
+    return new VerticaStreamWriterBuilder()
+        .table("compressed")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR);
+  }
+
+  InputStream decompress(VerticaCompressionType compressionType, byte[] compressed) throws IOException {
+    final InputStream inputStream = new ByteArrayInputStream(compressed);
+    switch (compressionType) {
+      case GZIP:
+        return new GzipCompressorInputStream(inputStream, true);
+      case BZIP:
+        return new BZip2CompressorInputStream(inputStream, true);
+      case LZO:
+        return new LzoInputStream(
+            inputStream,
+            LzoLibrary.getInstance().newDecompressor(LzoAlgorithm.LZO1X, null)
+        );
+      case ZSTD:
+        return new ZstdInputStream(inputStream);
+      default:
+        return inputStream;
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> roundTrip() {
+    return Arrays.asList(
+        VerticaCompressionType.GZIP,
+        VerticaCompressionType.BZIP,
+        VerticaCompressionType.LZO,
+        VerticaCompressionType.ZSTD
+    ).stream().flatMap(compressionType -> Stream.of(0, 4).map(threads -> dynamicTest(
+        String.format("%s threads=%s", compressionType, threads), () -> {
+      final byte[] expected = write(builder());
+      final byte[] compressed = write(
+          builder()
+              .compressionType(compressionType)
+              .compressionThreads(threads)
+              .compressionBlockSize(4096)
+      );
+      final byte[] actual;
+      try (InputStream inputStream = decompress(compressionType, compressed)) {
+        actual = ByteStreams.toByteArray(inputStream);
+      }
+      assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+    })));
+  }
+
+  @Test
+  public void zstdQuery() {
+    assertEquals(
+        "COPY \"compressed\" FROM STDIN ZSTD NATIVE AUTO",
+        new QueryBuilder(
+            builder()
+                .compressionType(VerticaCompressionType.ZSTD)
+                .loadMethod(VerticaLoadMethod.AUTO)
+        ).toString()
+    );
+  }
+
+  @Test
+  public void zstdCompressionLevel() {
+    assertThrows(IllegalStateException.class, () -> write(
+        builder()
+            .compressionType(VerticaCompressionType.ZSTD)
+            .compressionLevel(9)
+    ));
+  }
+
+  /**
+   * Method is used to read everything that can be decompressed from a stream that has not been finished.
+   */
+  byte[] readAvailable(InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[1];
+    try {
+      int read;
+      while ((read = inputStream.read(buffer)) > -1) {
+        outputStream.write(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      // The stream was flushed but not finished.
+    }
+    return outputStream.toByteArray();
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> syncFlush() {
+    return Arrays.asList(
+        VerticaCompressionType.GZIP,
+        VerticaCompressionType.BZIP,
+        VerticaCompressionType.LZO,
+        VerticaCompressionType.ZSTD
+    ).stream().map(compressionType -> dynamicTest(compressionType.toString(), () -> {
+      final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (VerticaStreamWriter uncompressedWriter = builder().build(expected);
+           VerticaStreamWriter compressedWriter = builder().compressionType(compressionType).build(compressed)) {
+        for (int i = 0; i < 3; i++) {
+          for (int j = 0; j < 100; j++) {
+            final Object[] row = new Object[]{(long) j, "value" + j};
+            uncompressedWriter.write(row);
+            compressedWriter.write(row);
+          }
+          uncompressedWriter.flush();
+          compressedWriter.flush();
+
+          final byte[] actual;
+          try (InputStream inputStream = decompress(compressionType, compressed.toByteArray())) {
+            actual = readAvailable(inputStream);
+          }
+          assertEquals(
+              BaseEncoding.base16().encode(expected.toByteArray()),
+              BaseEncoding.base16().encode(actual),
+              "Every row written before flush() should be readable."
+          );
+        }
+      }
+    }));
+  }
+
+  @Test
+  public void closeWhenCompressionFails() throws IOException {
+    final boolean[] closed = new boolean[1];
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        closed[0] = true;
+        super.close();
+      }
+    };
+    final ParallelCompressorOutputStream stream = new ParallelCompressorOutputStream(
+        outputStream,
+        out -> {
+          throw new IOException("Compressor failed.");
+        },
+        1024,
+        2,
+        WriterEvents.DISABLED
+    );
+    stream.write(new byte[100]);
+    assertThrows(IOException.class, stream::close);
+    assertTrue(closed[0], "Underlying stream should be closed.");
+  }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PartitionedVerticaStreamWriterTest {
+
+  VerticaStreamWriterBuilder builder() {
+    return new VerticaStreamWriterBuilder()
+        .table("partitioned")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR)
+        .column("ACTIVE", VerticaColumnType.BOOLEAN)
+        .segmentHasher(SegmentHasher.MURMUR3);
+  }
+
+  Object[] row(int i) {
+    return new Object[]{(long) i, i % 5 == 0 ? null : "name" + i, i % 2 == 0};
+  }
+
+  @Test
+  public void murmur3() {
+    final Random random = new Random(1234);
+    for (int length = 0; length < 40; length++) {
+      final byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      final int seed = random.nextInt();
+      final ByteBuffer buffer = ByteBuffer.allocate(length + 3);
+      buffer.position(3);
+      buffer.put(bytes);
+      assertEquals(
+          Hashing.murmur3_32(seed).hashBytes(bytes).asInt(),
+          SegmentHasher.MURMUR3.hash(seed, buffer, 3, length),
+          "length " + length
+      );
+    }
+  }
+
+  @Test
+  public void segment() {
+    assertEquals(0, PartitionedVerticaStreamWriter.segment(0, 4));
+    assertEquals(0, PartitionedVerticaStreamWriter.segment(0x3FFFFFFF, 4));
+    assertEquals(1, PartitionedVerticaStreamWriter.segment(0x40000000, 4));
+    assertEquals(3, PartitionedVerticaStreamWriter.segment(-1, 4));
+    assertEquals(0, PartitionedVerticaStreamWriter.segment(-1, 1));
+  }
+
+  int expectedSegment(Object[] row, int segmentCount) {
+    final String name = (String) row[1];
+    int hash;
+    if (null == name) {
+      hash = SegmentHasher.MURMUR3.hash(0, null, 0, -1);
+    } else {
+      final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      hash = SegmentHasher.MURMUR3.hash(0, ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+    final ByteBuffer id = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, (Long) row[0]);
+    hash = SegmentHasher.MURMUR3.hash(hash, id, 0, 8);
+    return PartitionedVerticaStreamWriter.segment(hash, segmentCount);
+  }
+
+  @Test
+  public void route() throws IOException {
+    final int segmentCount = 4;
+    final List<ByteArrayOutputStream> expected = new ArrayList<>();
+    final List<VerticaStreamWriter> expectedWriters = new ArrayList<>();
+    for (int i = 0; i < segmentCount; i++) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      expected.add(outputStream);
+      expectedWriters.add(builder().build(outputStream));
+    }
+
+    final List<ByteArrayOutputStream> actual = new ArrayList<>();
+    try (PartitionedVerticaStreamWriter writer = builder()
+        .segmentationColumns("NAME", "ID")
+        .segmentCount(segmentCount)
+        .buildPartitioned(segment -> {
+          assertEquals(actual.size(), segment);
+          ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+          actual.add(outputStream);
+          return outputStream;
+        })) {
+      for (int i = 0; i < 1000; i++) {
+        final Object[] row = row(i);
+        writer.write(row);
+        expectedWriters.get(expectedSegment(row, segmentCount)).write(row);
+      }
+    }
+    for (VerticaStreamWriter writer : expectedWriters) {
+      writer.close();
+    }
+
+    assertEquals(segmentCount, actual.size());
+    for (int i = 0; i < segmentCount; i++) {
+      assertEquals(
+          BaseEncoding.base16().encode(expected.get(i).toByteArray()),
+          BaseEncoding.base16().encode(actual.get(i).toByteArray()),
+          "segment " + i
+      );
+    }
+  }
+
+  @Test
+  public void segmentsOnlyAcceptEncodedRows() throws IOException {
+    try (PartitionedVerticaStreamWriter writer = builder()
+        .segmentationColumns("ID")
+        .segmentCount(2)
+        .buildPartitioned(segment -> new ByteArrayOutputStream())) {
+      for (VerticaNativeStreamWriter segment : writer.segments) {
+        assertNull(segment.rowBuffer, "segments should not allocate a row buffer.");
+        assertNull(segment.rowEncoder, "segments should not create a row encoder.");
+        assertThrows(IllegalStateException.class, () -> segment.write(row(1)));
+      }
+      writer.write(row(1));
+    }
+  }
+
+  @Test
+  public void segmentHasherRequired() {
+    assertThrows(IllegalStateException.class, () -> new VerticaStreamWriterBuilder()
+        .table("partitioned")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .segmentationColumns("ID")
+        .segmentCount(2)
+        .buildPartitioned(segment -> new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void unknownSegmentationColumn() {
+    assertThrows(IllegalStateException.class, () -> builder()
+        .segmentationColumns("MISSING")
+        .segmentCount(2)
+        .buildPartitioned(segment -> new ByteArrayOutputStream()));
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledBufferAllocatorTest {
+
+  @Test
+  public void sizeClass() {
+    assertEquals(0, PooledBufferAllocator.sizeClass(1));
+    assertEquals(0, PooledBufferAllocator.sizeClass(4096));
+    assertEquals(1, PooledBufferAllocator.sizeClass(4097));
+    assertEquals(8, PooledBufferAllocator.sizeClass(1024 * 1024));
+    assertEquals(-1, PooledBufferAllocator.sizeClass((1 << PooledBufferAllocator.MAX_SIZE_CLASS_SHIFT) + 1));
+  }
+
+  @Test
+  public void reuse() {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(1024 * 1024);
+    final ByteBuffer buffer = allocator.allocate(5000);
+    assertTrue(buffer.isDirect());
+    assertEquals(8192, buffer.capacity());
+    assertEquals(8192, allocator.allocatedBytes());
+    buffer.putLong(1L);
+    allocator.release(buffer);
+    final ByteBuffer reused = allocator.allocate(6000);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(8192, allocator.allocatedBytes());
+  }
+
+  @Test
+  public void maxBytes() {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(8192);
+    final ByteBuffer first = allocator.allocate(8192);
+    assertTrue(first.isDirect());
+    final ByteBuffer second = allocator.allocate(8192);
+    assertFalse(second.isDirect(), "allocations over maxBytes should use the heap.");
+    allocator.release(second);
+    assertEquals(8192, allocator.allocatedBytes());
+  }
+
+  @Test
+  public void releaseIgnoresForeignBuffers() {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(1024 * 1024);
+    final ByteBuffer foreign = ByteBuffer.allocateDirect(4096);
+    allocator.release(foreign);
+    final ByteBuffer buffer = allocator.allocate(4096);
+    assertNotSame(foreign, buffer, "buffers not created by the allocator should not be pooled.");
+    assertEquals(4096, allocator.allocatedBytes());
+
+    allocator.release(buffer);
+    allocator.release(buffer);
+    final ByteBuffer first = allocator.allocate(4096);
+    final ByteBuffer second = allocator.allocate(4096);
+    assertSame(buffer, first);
+    assertNotSame(first, second, "a buffer released twice should only be pooled once.");
+    assertEquals(8192, allocator.allocatedBytes());
+  }
+
+  @Test
+  public void trim() {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(1024 * 1024);
+    final ByteBuffer pooled = allocator.allocate(4096);
+    final ByteBuffer inUse = allocator.allocate(8192);
+    allocator.release(pooled);
+    assertEquals(12288, allocator.allocatedBytes());
+    allocator.trim();
+    assertEquals(8192, allocator.allocatedBytes());
+    allocator.release(inUse);
+  }
+
+  @Test
+  public void reclaimCollectedBuffers() throws InterruptedException {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(8192);
+    allocator.allocate(8192);
+    assertEquals(8192, allocator.allocatedBytes());
+    for (int i = 0; i < 100 && 0 != allocator.allocatedBytes(); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(0, allocator.allocatedBytes(), "bytes of a collected buffer should be returned.");
+    assertTrue(allocator.allocate(8192).isDirect());
+  }
+
+  @Test
+  public void parseSize() {
+    assertEquals(1024, PooledBufferAllocator.parseSize("1024"));
+    assertEquals(64L * 1024, PooledBufferAllocator.parseSize("64k"));
+    assertEquals(512L * 1024 * 1024, PooledBufferAllocator.parseSize("512M"));
+    assertEquals(2L * 1024 * 1024 * 1024, PooledBufferAllocator.parseSize("2g"));
+    assertTrue(PooledBufferAllocator.shared().maxBytes() <= PooledBufferAllocator.maxDirectMemory() / 4);
+  }
+
+  @Test
+  public void writerReleasesBuffers() throws IOException {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(4 * 1024 * 1024);
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("pooled")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .blockSize(64 * 1024)
+        .bufferAllocator(allocator);
+
+    VerticaStreamWriter writer = builder.build(new ByteArrayOutputStream());
+    writer.write(new Object[]{1L});
+    writer.close();
+    final long allocated = allocator.allocatedBytes();
+    assertThrows(IllegalStateException.class, () -> writer.write(new Object[]{2L}));
+
+    for (int i = 0; i < 10; i++) {
+      try (VerticaStreamWriter streamWriter = builder.build(new ByteArrayOutputStream())) {
+        streamWriter.write(new Object[]{(long) i});
+      }
+    }
+    assertEquals(allocated, allocator.allocatedBytes(), "closed writers should return their buffers.");
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RollingVerticaStreamWriterTest {
+
+  VerticaStreamWriterBuilder builder() {
+    return new VerticaStreamWriterBuilder()
+        .table("rolling")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR);
+  }
+
+  Object[] row(int i) {
+    return new Object[]{(long) i, i % 3 == 0 ? null : "value" + i};
+  }
+
+  byte[] write(int count) throws IOException {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter writer = builder().build(outputStream)) {
+        for (int i = 0; i < count; i++) {
+          writer.write(row(i));
+        }
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  static class Parts implements RollingVerticaStreamWriter.PartSink, RollingVerticaStreamWriter.PartListener {
+    final List<ByteArrayOutputStream> streams = new ArrayList<>();
+    final List<RollingVerticaStreamWriter.Part> parts = new ArrayList<>();
+
+    @Override
+    public ByteArrayOutputStream open(int index) {
+      assertEquals(this.streams.size(), index);
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      this.streams.add(outputStream);
+      return outputStream;
+    }
+
+    @Override
+    public void completed(RollingVerticaStreamWriter.Part part) {
+      assertEquals(this.parts.size(), part.index());
+      this.parts.add(part);
+    }
+  }
+
+  int headerSize(VerticaStreamWriterBuilder builder) {
+    return VerticaNativeStreamWriter.HEADER.length + 4 + 2 + 1 + 2 + builder.columnInfos.size() * 4;
+  }
+
+  /**
+   * Concatenates the rows of each part after removing the header.
+   */
+  byte[] rows(List<byte[]> parts, int headerSize) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      outputStream.write(part, headerSize, part.length - headerSize);
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Test
+  public void maxRows() throws IOException {
+    final byte[] expected = write(1000);
+    final Parts parts = new Parts();
+    try (RollingVerticaStreamWriter writer = builder().rollingMaxRows(300).buildRolling(parts, parts)) {
+      for (int i = 0; i < 1000; i++) {
+        writer.write(row(i));
+      }
+    }
+    assertEquals(4, parts.parts.size());
+    assertEquals(300, parts.parts.get(0).rows());
+    assertEquals(100, parts.parts.get(3).rows());
+
+    final int headerSize = headerSize(builder());
+    final List<byte[]> contents = new ArrayList<>();
+    for (int i = 0; i < parts.streams.size(); i++) {
+      final byte[] part = parts.streams.get(i).toByteArray();
+      assertEquals(part.length, parts.parts.get(i).bytes());
+      assertEquals(
+          BaseEncoding.base16().encode(Arrays.copyOf(expected, headerSize)),
+          BaseEncoding.base16().encode(Arrays.copyOf(part, headerSize)),
+          "each part should start with the header."
+      );
+      contents.add(part);
+    }
+    assertEquals(
+        BaseEncoding.base16().encode(Arrays.copyOfRange(expected, headerSize, expected.length)),
+        BaseEncoding.base16().encode(rows(contents, headerSize))
+    );
+  }
+
+  @Test
+  public void maxBytesCompressed() throws IOException {
+    final byte[] expected = write(5000);
+    final Parts parts = new Parts();
+    final long maxBytes = 16 * 1024;
+    try (RollingVerticaStreamWriter writer = builder()
+        .compressionType(VerticaCompressionType.GZIP)
+        .rollingMaxBytes(maxBytes)
+        .buildRolling(parts, parts)) {
+      for (int i = 0; i < 5000; i++) {
+        writer.write(row(i));
+      }
+    }
+    assertTrue(parts.parts.size() > 1, "output should be split into multiple parts.");
+
+    final int headerSize = headerSize(builder());
+    final List<byte[]> contents = new ArrayList<>();
+    long rows = 0;
+    for (int i = 0; i < parts.streams.size(); i++) {
+      final RollingVerticaStreamWriter.Part part = parts.parts.get(i);
+      final byte[] compressed = parts.streams.get(i).toByteArray();
+      assertEquals(compressed.length, part.compressedBytes());
+      final byte[] content;
+      try (InputStream inputStream = new GzipCompressorInputStream(new ByteArrayInputStream(compressed))) {
+        content = ByteStreams.toByteArray(inputStream);
+      }
+      assertEquals(content.length, part.bytes());
+      if (i < parts.streams.size() - 1) {
+        assertTrue(part.bytes() >= maxBytes);
+      }
+      rows += part.rows();
+      contents.add(content);
+    }
+    assertEquals(5000, rows);
+    assertEquals(
+        BaseEncoding.base16().encode(Arrays.copyOfRange(expected, headerSize, expected.length)),
+        BaseEncoding.base16().encode(rows(contents, headerSize))
+    );
+  }
+
+  @Test
+  public void writeBatch() throws IOException {
+    final long[] ids = new long[10];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i;
+    }
+    final Parts parts = new Parts();
+    try (RollingVerticaStreamWriter writer = builder().rollingMaxRows(4).buildRolling(parts, parts)) {
+      writer.writeBatch(
+          new ColumnBatch(2)
+              .rowCount(ids.length)
+              .longs(0, ids)
+              .objects(1, new Object[ids.length])
+      );
+    }
+    assertEquals(3, parts.parts.size());
+    assertEquals(4, parts.parts.get(1).rows());
+    assertEquals(2, parts.parts.get(2).rows());
+  }
+}
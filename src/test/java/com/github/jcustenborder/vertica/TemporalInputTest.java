@@ -0,0 +1,183 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class TemporalInputTest {
+  static final long EPOCH_MICROS = 919739512350123L;
+
+  static class TestCase {
+    final VerticaColumnType type;
+    final TemporalInput input;
+    final Object value;
+    final long expected;
+
+    TestCase(VerticaColumnType type, TemporalInput input, Object value, long expected) {
+      this.type = type;
+      this.input = input;
+      this.value = value;
+      this.expected = expected;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s %s %s", this.type, this.input, this.value);
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> encode() {
+    return Arrays.asList(
+        new TestCase(VerticaColumnType.TIMESTAMP, TemporalInput.EPOCH_MICROS, EPOCH_MICROS, EPOCH_MICROS - Constants.THEIR_EPOCH_MICRO),
+        new TestCase(VerticaColumnType.TIMESTAMPTZ, TemporalInput.EPOCH_MICROS, EPOCH_MICROS, EPOCH_MICROS - Constants.THEIR_EPOCH_MICRO),
+        new TestCase(VerticaColumnType.TIMESTAMP, TemporalInput.EPOCH_MILLIS, 919739512350L, 919739512350000L - Constants.THEIR_EPOCH_MICRO),
+        new TestCase(VerticaColumnType.TIMESTAMPTZ, TemporalInput.EPOCH_MILLIS, -1L, -1000L - Constants.THEIR_EPOCH_MICRO),
+        new TestCase(VerticaColumnType.DATE, TemporalInput.EPOCH_DAY, 10645, 10645 - Constants.THEIR_EPOCH_DAY),
+        new TestCase(VerticaColumnType.DATE, TemporalInput.EPOCH_DAY, 10645L, 10645 - Constants.THEIR_EPOCH_DAY),
+        new TestCase(VerticaColumnType.TIME, TemporalInput.MICROS_OF_DAY, 45296000001L, 45296000001L),
+        new TestCase(VerticaColumnType.INTERVAL, TemporalInput.MICROS, 10983000000L, 10983000000L)
+    ).stream().map(testCase -> dynamicTest(testCase.toString(), () -> {
+      final VerticaColumnInfo columnInfo = new VerticaColumnInfo("test", testCase.type, testCase.input);
+      final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+      columnInfo.encode(buffer, testCase.value);
+      columnInfo.encodeLong(buffer, ((Number) testCase.value).longValue());
+      assertEquals(16, buffer.position());
+      assertEquals(testCase.expected, buffer.getLong(0));
+      assertEquals(testCase.expected, buffer.getLong(8));
+    }));
+  }
+
+  @Test
+  public void objectsAreStillAccepted() {
+    final VerticaColumnInfo expected = new VerticaColumnInfo("test", VerticaColumnType.TIMESTAMP);
+    final VerticaColumnInfo actual = new VerticaColumnInfo("test", VerticaColumnType.TIMESTAMP, TemporalInput.EPOCH_MILLIS);
+    final ByteBuffer expectedBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    final ByteBuffer actualBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    expected.encode(expectedBuffer, new Date(919739512350L));
+    actual.encode(actualBuffer, new Date(919739512350L));
+    assertArrayEquals(expectedBuffer.array(), actualBuffer.array());
+  }
+
+  @Test
+  public void notSupported() {
+    assertThrows(IllegalStateException.class, () -> new VerticaStreamWriterBuilder()
+        .column("test", VerticaColumnType.INTEGER, TemporalInput.EPOCH_MICROS));
+    assertThrows(IllegalStateException.class, () -> new VerticaStreamWriterBuilder()
+        .column("test", VerticaColumnType.TIME, TemporalInput.EPOCH_DAY));
+    assertThrows(ArithmeticException.class, () -> new VerticaColumnInfo(
+        "test", VerticaColumnType.TIMESTAMP, TemporalInput.EPOCH_MILLIS
+    ).encodeLong(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN), Long.MAX_VALUE));
+  }
+
+  @Test
+  public void batchAcceptsLongsAndInts() throws IOException {
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("events")
+        .column("DAY", VerticaColumnType.DATE, TemporalInput.EPOCH_DAY)
+        .column("TS", VerticaColumnType.TIMESTAMP, TemporalInput.EPOCH_MICROS);
+    final int count = 10;
+
+    final ByteArrayOutputStream objects = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(objects)) {
+      for (int i = 0; i < count; i++) {
+        writer.write(new Object[]{10645L + i, 1000000L * i});
+      }
+    }
+
+    final long[] days = new long[count];
+    final int[] timestamps = new int[count];
+    for (int i = 0; i < count; i++) {
+      days[i] = 10645L + i;
+      timestamps[i] = 1000000 * i;
+    }
+    final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(batch)) {
+      writer.writeBatch(
+          new ColumnBatch(2)
+              .rowCount(count)
+              .longs(0, days)
+              .ints(1, timestamps)
+      );
+    }
+    assertArrayEquals(objects.toByteArray(), batch.toByteArray());
+  }
+
+  @Test
+  public void writePaths() throws IOException {
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("events")
+        .column("TS", VerticaColumnType.TIMESTAMPTZ, TemporalInput.EPOCH_MILLIS)
+        .column("DAY", VerticaColumnType.DATE, TemporalInput.EPOCH_DAY)
+        .column("DURATION", VerticaColumnType.INTERVAL, TemporalInput.MICROS);
+    final int count = 10;
+
+    final ByteArrayOutputStream objects = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(objects)) {
+      for (int i = 0; i < count; i++) {
+        writer.write(new Object[]{919739512350L + i, 10645 + i, (long) i});
+      }
+    }
+
+    final ByteArrayOutputStream rows = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(rows)) {
+      final VerticaRow row = writer.newRow();
+      for (int i = 0; i < count; i++) {
+        row.setLong(0, 919739512350L + i);
+        row.setInt(1, 10645 + i);
+        row.setLong(2, i);
+        writer.commit(row);
+      }
+    }
+
+    final long[] timestamps = new long[count];
+    final int[] days = new int[count];
+    final long[] durations = new long[count];
+    for (int i = 0; i < count; i++) {
+      timestamps[i] = 919739512350L + i;
+      days[i] = 10645 + i;
+      durations[i] = i;
+    }
+    final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder.build(batch)) {
+      writer.writeBatch(
+          new ColumnBatch(3)
+              .rowCount(count)
+              .longs(0, timestamps)
+              .ints(1, days)
+              .longs(2, durations)
+      );
+    }
+
+    assertArrayEquals(objects.toByteArray(), rows.toByteArray());
+    assertArrayEquals(objects.toByteArray(), batch.toByteArray());
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class Utf8SliceTest {
+
+  @TestFactory
+  public Stream<DynamicTest> valid() {
+    return Arrays.asList(
+        "",
+        "ascii",
+        "caf\u00e9",
+        "\u0800\uffff\ud7ff",
+        "\ud800\udc00 \udbff\udfff \ud83d\ude00"
+    ).stream().map(input -> dynamicTest("valid " + input, () -> {
+      final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+      final Utf8Slice slice = Utf8Slice.validated(bytes);
+      assertEquals(input, slice.toString());
+      assertEquals(bytes.length, slice.length());
+    }));
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> invalid() {
+    return Arrays.asList(
+        "80",
+        "C0AF",
+        "C1BF",
+        "C3",
+        "E080AF",
+        "EDA080",
+        "E282",
+        "F08FBFBF",
+        "F4908080",
+        "F5808080",
+        "F09F9828",
+        "FF"
+    ).stream().map(hex -> dynamicTest(hex, () -> {
+      final byte[] bytes = BaseEncoding.base16().decode("41" + hex);
+      assertEquals(1, Utf8Slice.invalidIndex(bytes, 0, bytes.length));
+      assertThrows(IllegalArgumentException.class, () -> Utf8Slice.validated(bytes));
+    }));
+  }
+
+  @Test
+  public void range() {
+    final byte[] bytes = BaseEncoding.base16().decode("FF4142FF");
+    final Utf8Slice slice = Utf8Slice.validated(bytes, 1, 2);
+    assertEquals("AB", slice.toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> Utf8Slice.of(bytes, 2, 3));
+  }
+
+  @Test
+  public void write() throws Exception {
+    final VerticaColumnInfo expected = new VerticaColumnInfo("NAME", VerticaColumnType.VARCHAR);
+    final VerticaColumnInfo actual = new VerticaColumnInfo(
+        "NAME", VerticaColumnType.VARCHAR, -1, -1, -1, Utf8Slice.class
+    );
+    final ByteBuffer expectedBuffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    final ByteBuffer actualBuffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    expected.encode(expectedBuffer, "caf\u00e9");
+    actual.encode(actualBuffer, Utf8Slice.of("caf\u00e9".getBytes(StandardCharsets.UTF_8)));
+    assertArrayEquals(expectedBuffer.array(), actualBuffer.array());
+  }
+}
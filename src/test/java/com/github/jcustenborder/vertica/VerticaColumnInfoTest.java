@@ -18,6 +18,7 @@ package com.github.jcustenborder.vertica;
 import com.google.common.base.MoreObjects;
 import com.google.common.io.BaseEncoding;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,8 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
@@ -256,4 +259,31 @@ public class VerticaColumnInfoTest {
       }
     }));
   }
+
+  @Test
+  public void inputType() {
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo("test", VerticaColumnType.INTEGER, 8, -1, -1, long.class);
+    assertEquals(Long.class, columnInfo.inputType(), "inputType should match.");
+    assertNotNull(columnInfo.encoder, "encoder should be bound.");
+    ByteBuffer byteBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    columnInfo.encode(byteBuffer, 1L);
+    assertEquals("0100000000000000", BaseEncoding.base16().encode(byteBuffer.array()));
+  }
+
+  @Test
+  public void inputTypeNotSupported() {
+    assertThrows(IllegalStateException.class, () -> {
+      new VerticaColumnInfo("test", VerticaColumnType.INTEGER, 8, -1, -1, StringBuilder.class);
+    });
+  }
+
+  @Test
+  public void encodeCachesEncoder() {
+    VerticaColumnInfo columnInfo = new VerticaColumnInfo("test", VerticaColumnType.INTEGER, 4);
+    ByteBuffer byteBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    columnInfo.encode(byteBuffer, 1);
+    assertEquals(Integer.class, columnInfo.cachedEncoder.inputType, "cachedEncoder.inputType should match.");
+    columnInfo.encode(byteBuffer, 2);
+    assertEquals("0100000002000000", BaseEncoding.base16().encode(byteBuffer.array()));
+  }
 }
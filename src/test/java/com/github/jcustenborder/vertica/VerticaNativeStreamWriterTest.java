@@ -15,21 +15,42 @@
  */
 package com.github.jcustenborder.vertica;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -94,8 +115,14 @@ public class VerticaNativeStreamWriterTest {
       }
     }
 
-    final byte[] nullBytes = VerticaNativeStreamWriter
-        .nullMarkers(row, ROW_COUNT / 8 + 1);
+    final int nullMarkerSize = ROW_COUNT / 8 + 1;
+    ByteBuffer buffer = ByteBuffer.allocate(VerticaNativeStreamWriter.ROW_LENGTH_SIZE + nullMarkerSize);
+    for (int i = 0; i < ROW_COUNT; i++) {
+      if (null == row[i]) {
+        VerticaNativeStreamWriter.nullMarker(buffer, i);
+      }
+    }
+    final byte[] nullBytes = Arrays.copyOfRange(buffer.array(), VerticaNativeStreamWriter.ROW_LENGTH_SIZE, buffer.capacity());
 
     log.trace("null bytes found -> {}", Arrays.toString(nullBytes));
 
@@ -157,6 +184,468 @@ public class VerticaNativeStreamWriterTest {
     assertEquals(expected, actual);
   }
 
+  byte[] writeRows(VerticaStreamWriterBuilder builder, int count) throws IOException {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        for (int i = 0; i < count; i++) {
+          streamWriter.write(new Object[]{
+              (long) i,
+              i % 3 == 0 ? null : "value" + i,
+              i % 2 == 0
+          });
+        }
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  VerticaStreamWriterBuilder rowsBuilder() {
+    return new VerticaStreamWriterBuilder()
+        .table("rows")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR)
+        .column("FLAG", VerticaColumnType.BOOLEAN);
+  }
+
+  byte[] writeRows(VerticaStreamWriterBuilder builder, int count, Path path) throws IOException {
+    try (VerticaStreamWriter streamWriter = builder.build(path)) {
+      for (int i = 0; i < count; i++) {
+        streamWriter.write(new Object[]{
+            (long) i,
+            i % 3 == 0 ? null : "value" + i,
+            i % 2 == 0
+        });
+      }
+    }
+    return Files.readAllBytes(path);
+  }
+
+  @Test
+  public void buildPath() throws IOException {
+    final Path path = Files.createTempFile("vertica", ".bin");
+    try {
+      final byte[] expected = writeRows(rowsBuilder(), 1000);
+      final byte[] actual = writeRows(rowsBuilder().mappedExtentSize(4096), 1000, path);
+      assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+      final byte[] synced = writeRows(rowsBuilder().mappedExtentSize(4096).mappedSync(true).blockSize(1024), 1000, path);
+      assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(synced));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void buildPathCompressed() throws IOException {
+    final Path path = Files.createTempFile("vertica", ".bin.gz");
+    try {
+      final byte[] expected = writeRows(rowsBuilder(), 1000);
+      writeRows(rowsBuilder().compressionType(VerticaCompressionType.GZIP).mappedExtentSize(4096), 1000, path);
+      final byte[] actual;
+      try (InputStream inputStream = new GzipCompressorInputStream(Files.newInputStream(path))) {
+        actual = ByteStreams.toByteArray(inputStream);
+      }
+      assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  byte[] writeNames(VerticaStreamWriterBuilder builder, int... lengths) throws IOException {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        for (int i = 0; i < lengths.length; i++) {
+          if (lengths[i] < 0) {
+            continue;
+          }
+          final char[] name = new char[lengths[i]];
+          Arrays.fill(name, (char) ('a' + i % 26));
+          try {
+            streamWriter.write(new Object[]{(long) i, new String(name), true});
+          } catch (IllegalStateException e) {
+            log.trace("Row {} was rejected", i, e);
+          }
+        }
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  @Test
+  public void growRowBuffer() throws IOException {
+    final byte[] expected = writeNames(rowsBuilder().rowBufferSize(1024 * 1024), 10, 5000, 20, 100000, 30);
+    final byte[] actual = writeNames(
+        rowsBuilder().bufferAllocator(BufferAllocator.HEAP).rowBufferSize(128),
+        10, 5000, 20, 100000, 30
+    );
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void maxRowBufferSize() throws IOException {
+    final byte[] expected = writeNames(rowsBuilder(), 10, -1, 30);
+    final byte[] actual = writeNames(rowsBuilder().rowBufferSize(128).maxRowBufferSize(1024), 10, 2000, 30);
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void shrinkRowBuffer() throws IOException {
+    final VerticaStreamWriterBuilder builder = rowsBuilder()
+        .bufferAllocator(BufferAllocator.HEAP)
+        .rowBufferSize(128);
+    try (VerticaNativeStreamWriter streamWriter = (VerticaNativeStreamWriter) builder.build(new ByteArrayOutputStream())) {
+      final char[] name = new char[4000];
+      Arrays.fill(name, 'a');
+      streamWriter.write(new Object[]{1L, new String(name), true});
+      assertEquals(4096, streamWriter.rowBuffer.buffer().capacity());
+      for (int i = 0; i < RowBuffer.SHRINK_AFTER_ROWS * 6; i++) {
+        streamWriter.write(new Object[]{(long) i, "small", false});
+      }
+      assertEquals(128, streamWriter.rowBuffer.buffer().capacity());
+    }
+  }
+
+  @Test
+  public void blockSize() throws IOException {
+    final byte[] expected = writeRows(rowsBuilder(), 1000);
+    final byte[] actual = writeRows(rowsBuilder().blockSize(1024), 1000);
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void commit() throws IOException {
+    final byte[] expected = writeRows(rowsBuilder(), 1000);
+    final byte[] actual;
+
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = rowsBuilder().build(outputStream)) {
+        VerticaRow row = streamWriter.newRow();
+        for (int i = 0; i < 1000; i++) {
+          row.setLong(0, i);
+          if (i % 3 == 0) {
+            row.setNull(1);
+          } else {
+            byte[] name = ("value" + i).getBytes(StandardCharsets.UTF_8);
+            row.setUtf8(1, name, 0, name.length);
+          }
+          row.setBoolean(2, i % 2 == 0);
+          streamWriter.commit(row);
+        }
+      }
+      actual = outputStream.toByteArray();
+    }
+
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void commitWrongType() throws IOException {
+    try (VerticaStreamWriter streamWriter = rowsBuilder().build(new ByteArrayOutputStream())) {
+      VerticaRow row = streamWriter.newRow();
+      assertThrows(IllegalStateException.class, () -> row.setDouble(0, 1D));
+    }
+  }
+
+  @Test
+  public void commitNumeric() throws IOException {
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("numeric")
+        .column("AMOUNT", VerticaColumnType.NUMERIC, 10, 2)
+        .column("COUNT", VerticaColumnType.NUMERIC, 38, 0);
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (VerticaStreamWriter objects = builder.build(expected);
+         VerticaStreamWriter rows = builder.build(actual)) {
+      final VerticaRow row = rows.newRow();
+      for (long i = -50; i < 50; i++) {
+        objects.write(new Object[]{i * 1000, i * 123456789L});
+        rows.commit(row.setLong(0, i * 1000).setLong(1, i * 123456789L));
+      }
+      assertThrows(IllegalArgumentException.class, () -> rows.commit(row.setLong(0, 100000000L)));
+    }
+    assertEquals(
+        BaseEncoding.base16().encode(expected.toByteArray()),
+        BaseEncoding.base16().encode(actual.toByteArray())
+    );
+  }
+
+  @Test
+  public void commitForeignRow() throws IOException {
+    try (VerticaStreamWriter first = rowsBuilder().build(new ByteArrayOutputStream());
+         VerticaStreamWriter second = rowsBuilder().build(new ByteArrayOutputStream())) {
+      final VerticaRow row = first.newRow().setLong(0, 1L).setNull(1).setBoolean(2, true);
+      assertThrows(IllegalStateException.class, () -> second.commit(row));
+      first.commit(row);
+    }
+  }
+
+  ColumnBatch rowsBatch(int count) {
+    ColumnBatch batch = new ColumnBatch(3).rowCount(count);
+    long[] ids = new long[count];
+    int[] offsets = new int[count + 1];
+    ByteArrayOutputStream names = new ByteArrayOutputStream();
+    byte[] nameNulls = new byte[count / 8 + 1];
+    boolean[] flags = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = i;
+      if (i % 3 == 0) {
+        nameNulls[i / 8] |= 1 << (i % 8);
+      } else {
+        byte[] name = ("value" + i).getBytes(StandardCharsets.UTF_8);
+        names.write(name, 0, name.length);
+      }
+      offsets[i + 1] = names.size();
+      flags[i] = i % 2 == 0;
+    }
+    return batch.longs(0, ids)
+        .bytes(1, offsets, names.toByteArray())
+        .nulls(1, nameNulls)
+        .booleans(2, flags);
+  }
+
+  @Test
+  public void writeBatch() throws IOException {
+    final int count = 1000;
+    final byte[] expected = writeRows(rowsBuilder(), count);
+
+    ColumnBatch batch = rowsBatch(count);
+
+    final byte[] actual;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = rowsBuilder().build(outputStream)) {
+        streamWriter.writeBatch(batch);
+      }
+      actual = outputStream.toByteArray();
+    }
+
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void writeBatchInvalidOffsets() throws IOException {
+    final int count = 100;
+    final ColumnBatch decreasing = rowsBatch(count);
+    decreasing.offsets[1][50] = decreasing.offsets[1][49] - 1;
+    final ColumnBatch pastData = rowsBatch(count);
+    pastData.offsets[1][count] = pastData.data[1].length + 1;
+
+    for (ColumnBatch batch : Arrays.asList(decreasing, pastData)) {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (VerticaStreamWriter streamWriter = rowsBuilder().build(outputStream)) {
+        final int headerSize = outputStream.size();
+        assertThrows(IllegalStateException.class, () -> streamWriter.writeBatch(batch));
+        streamWriter.flush();
+        assertEquals(headerSize, outputStream.size(), "No rows should be written.");
+      }
+    }
+  }
+
+  @Test
+  public void writeBatchTemporal() throws IOException {
+    VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("temporal")
+        .column("DATECOL", VerticaColumnType.DATE)
+        .column("TIMESTAMPCOL", VerticaColumnType.TIMESTAMP);
+
+    final String expected;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        streamWriter.write(new Object[]{new Date(915753600000L), new Date(919739512350L)});
+      }
+      expected = BaseEncoding.base16().encode(outputStream.toByteArray());
+    }
+
+    final String actual;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        streamWriter.writeBatch(
+            new ColumnBatch(2)
+                .rowCount(1)
+                .ints(0, new int[]{(int) (915753600000L / 86400000L)})
+                .longs(1, new long[]{919739512350L * 1000L})
+        );
+      }
+      actual = BaseEncoding.base16().encode(outputStream.toByteArray());
+    }
+
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void encoderThreads() throws IOException {
+    final byte[] expected = writeRows(rowsBuilder(), 10000);
+    final byte[] actual = writeRows(rowsBuilder().encoderThreads(4).encoderChunkSize(100), 10000);
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+
+    final byte[] batch;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = rowsBuilder().encoderThreads(4).encoderChunkSize(100).build(outputStream)) {
+        streamWriter.writeBatch(rowsBatch(10000));
+      }
+      batch = outputStream.toByteArray();
+    }
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(batch));
+  }
+
+  @Test
+  public void encoderThreadsCommit() throws IOException {
+    final byte[] expected = writeRows(rowsBuilder(), 10000);
+    final byte[] actual;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = rowsBuilder().encoderThreads(4).encoderChunkSize(100).build(outputStream)) {
+        final VerticaRow row = streamWriter.newRow();
+        for (int i = 0; i < 10000; i++) {
+          final String name = i % 3 == 0 ? null : "value" + i;
+          if (i % 7 == 0) {
+            streamWriter.write(new Object[]{(long) i, name, i % 2 == 0});
+          } else {
+            streamWriter.commit(row.setLong(0, i).setObject(1, name).setBoolean(2, i % 2 == 0));
+          }
+        }
+      }
+      actual = outputStream.toByteArray();
+    }
+    assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+  }
+
+  @Test
+  public void encoderThreadsFailure() throws IOException {
+    final int chunkSize = 10;
+    final int badRow = 255;
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final VerticaStreamWriter streamWriter = rowsBuilder()
+        .encoderThreads(2)
+        .encoderChunkSize(chunkSize)
+        .build(outputStream);
+    RuntimeException failure = null;
+    try {
+      for (int i = 0; i < 1000; i++) {
+        streamWriter.write(new Object[]{
+            i == badRow ? (Object) 1.5D : (Object) (long) i,
+            i % 3 == 0 ? null : "value" + i,
+            i % 2 == 0
+        });
+      }
+      streamWriter.flush();
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+    assertNotNull(failure, "The encode failure should be thrown.");
+    assertThrows(IllegalStateException.class, () -> streamWriter.write(new Object[]{1L, "value", true}));
+    assertThrows(IllegalStateException.class, streamWriter::flush);
+    streamWriter.close();
+
+    // Only whole chunks before the failed chunk are written, so the output is a prefix of the rows with no gap.
+    final byte[] actual = outputStream.toByteArray();
+    boolean prefix = false;
+    for (int count = 0; count < badRow && !prefix; count += chunkSize) {
+      prefix = Arrays.equals(writeRows(rowsBuilder(), count), actual);
+    }
+    assertTrue(prefix, "Output should only contain the rows before the failed chunk.");
+  }
+
+  @Test
+  public void rowHeader() throws IOException {
+    VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("rows")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR);
+
+    final String actual;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+        streamWriter.write(new Object[]{1L, null});
+        streamWriter.write(new Object[]{null, "ONE"});
+      }
+      actual = BaseEncoding.base16().encode(outputStream.toByteArray());
+    }
+
+    final String expected = "4E41544956450AFF0D0A000D000000010000020008000000FFFFFFFF" +
+        "08000000400100000000000000" +
+        "07000000" + "80" + "030000004F4E45";
+    assertEquals(expected, actual);
+  }
+
+  static class TrackingOutputStream extends FilterOutputStream {
+    int flushes;
+    boolean closed;
+
+    TrackingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      this.out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      this.flushes++;
+      super.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.closed = true;
+      super.close();
+    }
+  }
+
+  @Test
+  public void flushRows() throws IOException {
+    VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("rows")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .flushRows(10);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    TrackingOutputStream trackingOutputStream = new TrackingOutputStream(outputStream);
+    try (VerticaStreamWriter streamWriter = builder.build(trackingOutputStream)) {
+      for (long i = 0; i < 25; i++) {
+        streamWriter.write(new Object[]{i});
+      }
+      assertEquals(2, trackingOutputStream.flushes);
+    }
+    assertEquals(VerticaNativeStreamWriter.HEADER.length + 13 + 25 * 13, outputStream.size());
+    assertFalse(trackingOutputStream.closed, "The caller's stream should not be closed.");
+  }
+
+  @Test
+  public void flush() throws IOException {
+    VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("rows")
+        .column("ID", VerticaColumnType.INTEGER, 8);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+      streamWriter.write(new Object[]{1L});
+      streamWriter.flush();
+      assertEquals(VerticaNativeStreamWriter.HEADER.length + 13 + 13, outputStream.size());
+    }
+  }
+
+  @Test
+  public void closeCompressedDoesNotCloseStream() throws IOException {
+    VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("rows")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .compressionType(VerticaCompressionType.GZIP);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    TrackingOutputStream trackingOutputStream = new TrackingOutputStream(outputStream);
+    try (VerticaStreamWriter streamWriter = builder.build(trackingOutputStream)) {
+      streamWriter.write(new Object[]{1L});
+    }
+    assertFalse(trackingOutputStream.closed, "The caller's stream should not be closed.");
+
+    final byte[] actual;
+    try (InputStream inputStream = new GzipCompressorInputStream(
+        new ByteArrayInputStream(outputStream.toByteArray()))) {
+      actual = ByteStreams.toByteArray(inputStream);
+    }
+    assertEquals(VerticaNativeStreamWriter.HEADER.length + 13 + 13, actual.length);
+  }
+
   String bitString(byte[] bytes) {
     StringBuilder builder = new StringBuilder();
 
@@ -167,4 +656,61 @@ public class VerticaNativeStreamWriterTest {
     return builder.toString();
   }
 
+  @Test
+  public void defaultMethods() throws IOException {
+    final VerticaStreamWriter writer = new VerticaStreamWriter() {
+      @Override
+      public void write(Object[] row) {
+
+      }
+
+      @Override
+      public void close() {
+
+      }
+
+      @Override
+      public List<VerticaColumnInfo> columns() {
+        return Collections.emptyList();
+      }
+    };
+    writer.flush();
+    assertThrows(UnsupportedOperationException.class, writer::newRow);
+    assertThrows(UnsupportedOperationException.class, () -> writer.writeBatch(new ColumnBatch(1)));
+  }
+
+  byte[] writeMixedTypes(VerticaStreamWriterBuilder builder, Object value) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (VerticaStreamWriter streamWriter = builder.build(outputStream)) {
+      for (int i = 0; i < 20000; i++) {
+        streamWriter.write(new Object[]{value});
+      }
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Test
+  public void writersDoNotShareColumns() throws Exception {
+    final VerticaStreamWriterBuilder builder = new VerticaStreamWriterBuilder()
+        .table("shared")
+        .column("NAME", VerticaColumnType.VARCHAR);
+    try (VerticaStreamWriter first = builder.build(new ByteArrayOutputStream());
+         VerticaStreamWriter second = builder.build(new ByteArrayOutputStream())) {
+      assertNotSame(first.columns().get(0), second.columns().get(0));
+    }
+
+    final byte[] expected = writeMixedTypes(builder, "value");
+    final byte[] bytes = "value".getBytes(StandardCharsets.UTF_8);
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      for (int attempt = 0; attempt < 5; attempt++) {
+        final Future<byte[]> strings = executorService.submit(() -> writeMixedTypes(builder, "value"));
+        final Future<byte[]> arrays = executorService.submit(() -> writeMixedTypes(builder, bytes));
+        assertArrayEquals(expected, strings.get());
+        assertArrayEquals(expected, arrays.get());
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
 }
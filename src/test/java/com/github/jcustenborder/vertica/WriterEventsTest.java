@@ -0,0 +1,158 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriterEventsTest {
+
+  @Test
+  public void available() {
+    assertTrue(WriterEvents.AVAILABLE, "jdk.jfr should be available.");
+    assertTrue(
+        WriterEvents.create(new VerticaStreamWriterBuilder()) instanceof FlightRecorderWriterEvents,
+        "create() should return FlightRecorderWriterEvents."
+    );
+  }
+
+  @Test
+  public void disabledByDefault() {
+    final WriterEvents events = new FlightRecorderWriterEvents("schema", "table");
+    assertEquals(null, events.beginFlush());
+    assertEquals(null, events.beginWrite());
+    events.endFlush(null, 1, 1);
+    events.endWrite(null, 1);
+  }
+
+  Map<String, List<RecordedEvent>> record(VerticaCompressionType compressionType) throws IOException {
+    final Path path = Files.createTempFile("vertica", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable("com.github.jcustenborder.vertica.RowBlockEncoded");
+        recording.enable("com.github.jcustenborder.vertica.CompressorBlock");
+        recording.start();
+
+        try (VerticaStreamWriter writer = new VerticaStreamWriterBuilder()
+            .table("events")
+            .column("ID", VerticaColumnType.INTEGER, 8)
+            .compressionType(compressionType)
+            .build(new ByteArrayOutputStream())) {
+          writer.write(new Object[]{1L});
+          final VerticaRow row = writer.newRow();
+          row.setLong(0, 2L);
+          writer.commit(row);
+          writer.flush();
+        }
+
+        recording.stop();
+        recording.dump(path);
+      }
+      final Map<String, List<RecordedEvent>> events = new HashMap<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(path)) {
+        events.computeIfAbsent(event.getEventType().getName(), k -> new ArrayList<>()).add(event);
+      }
+      return events;
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void rowAndCompressorEvents() throws IOException {
+    for (VerticaCompressionType compressionType : new VerticaCompressionType[]{
+        VerticaCompressionType.GZIP, VerticaCompressionType.BZIP, VerticaCompressionType.LZO, VerticaCompressionType.ZSTD}) {
+      final Map<String, List<RecordedEvent>> events = record(compressionType);
+      final List<RecordedEvent> encoded = events.get("com.github.jcustenborder.vertica.RowBlockEncoded");
+      assertEquals(2, encoded.size(), compressionType + " should record an event for write() and commit().");
+      for (RecordedEvent event : encoded) {
+        assertEquals(1L, event.getLong("rows"));
+        assertEquals(13L, event.getLong("bytes"));
+      }
+      final List<RecordedEvent> compressed = events.get("com.github.jcustenborder.vertica.CompressorBlock");
+      assertTrue(null != compressed && !compressed.isEmpty(), compressionType + " should record CompressorBlock.");
+      long compressedBytes = 0;
+      for (RecordedEvent event : compressed) {
+        compressedBytes += event.getLong("compressedBytes");
+      }
+      assertTrue(compressedBytes > 0, compressionType + " should report compressed bytes.");
+    }
+  }
+
+  @Test
+  public void recording() throws IOException {
+    final Path path = Files.createTempFile("vertica", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable("com.github.jcustenborder.vertica.RowBlockEncoded");
+        recording.enable("com.github.jcustenborder.vertica.CompressorBlock");
+        recording.enable("com.github.jcustenborder.vertica.Flush");
+        recording.enable("com.github.jcustenborder.vertica.WriteBlocked").withThreshold(Duration.ZERO);
+        recording.start();
+
+        final long[] ids = new long[100];
+        try (VerticaStreamWriter writer = new VerticaStreamWriterBuilder()
+            .schema("public")
+            .table("events")
+            .column("ID", VerticaColumnType.INTEGER, 8)
+            .compressionType(VerticaCompressionType.GZIP)
+            .compressionThreads(2)
+            .build(new ByteArrayOutputStream())) {
+          writer.writeBatch(new ColumnBatch(1).rowCount(ids.length).longs(0, ids));
+          writer.flush();
+        }
+
+        recording.stop();
+        recording.dump(path);
+      }
+
+      final List<RecordedEvent> recorded = RecordingFile.readAllEvents(path);
+      final Map<String, RecordedEvent> events = new HashMap<>();
+      for (RecordedEvent event : recorded) {
+        events.put(event.getEventType().getName(), event);
+      }
+
+      final RecordedEvent encoded = events.get("com.github.jcustenborder.vertica.RowBlockEncoded");
+      assertEquals(100L, encoded.getLong("rows"));
+      assertEquals(1300L, encoded.getLong("bytes"));
+      assertEquals("public", encoded.getString("schema"));
+      assertEquals("events", encoded.getString("table"));
+
+      final RecordedEvent flush = events.get("com.github.jcustenborder.vertica.Flush");
+      assertEquals(100L, flush.getLong("rows"));
+
+      assertTrue(events.containsKey("com.github.jcustenborder.vertica.CompressorBlock"), "CompressorBlock was not recorded.");
+      assertTrue(events.containsKey("com.github.jcustenborder.vertica.WriteBlocked"), "WriteBlocked was not recorded.");
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriterMetricsTest {
+
+  VerticaStreamWriterBuilder builder(WriterMetrics metrics) {
+    return new VerticaStreamWriterBuilder()
+        .table("metrics")
+        .column("ID", VerticaColumnType.INTEGER, 8)
+        .column("NAME", VerticaColumnType.VARCHAR)
+        .metricsListener(metrics)
+        .metricsSampleInterval(10);
+  }
+
+  void writeRows(VerticaStreamWriter writer) throws IOException {
+    for (int i = 0; i < 100; i++) {
+      writer.write(new Object[]{(long) i, i % 4 == 0 ? null : "value" + i});
+    }
+    VerticaRow row = writer.newRow();
+    for (int i = 0; i < 10; i++) {
+      row.setLong(0, i);
+      row.setObject(1, null);
+      writer.commit(row);
+    }
+    writer.flush();
+  }
+
+  @Test
+  public void uncompressed() throws IOException {
+    final WriterMetrics metrics = new WriterMetrics(2);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final int headerSize;
+    try (VerticaStreamWriter writer = builder(metrics).build(outputStream)) {
+      headerSize = outputStream.size();
+      writeRows(writer);
+    }
+    assertEquals(110, metrics.rows());
+    assertEquals(outputStream.size() - headerSize, metrics.bytes());
+    assertEquals(0, metrics.nulls(0));
+    assertEquals(35, metrics.nulls(1));
+    assertEquals(1, metrics.flushes());
+    assertEquals(11, metrics.encodeSamples(VerticaColumnType.INTEGER));
+    assertEquals(11, metrics.encodeSamples(VerticaColumnType.VARCHAR));
+    assertEquals(0, metrics.compressedBytes());
+  }
+
+  @Test
+  public void compressed() throws IOException {
+    final WriterMetrics metrics = new WriterMetrics(2);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (VerticaStreamWriter writer = builder(metrics)
+        .compressionType(VerticaCompressionType.GZIP)
+        .build(outputStream)) {
+      writeRows(writer);
+    }
+    assertEquals(110, metrics.rows());
+    assertEquals(outputStream.size(), metrics.compressedBytes());
+    assertTrue(metrics.compressionRatio() > 0D, "compressionRatio() should be greater than zero.");
+  }
+
+  @Test
+  public void pipelined() throws IOException {
+    final WriterMetrics metrics = new WriterMetrics(2);
+    try (VerticaStreamWriter writer = builder(metrics)
+        .encoderThreads(2)
+        .encoderChunkSize(16)
+        .build(new ByteArrayOutputStream())) {
+      writeRows(writer);
+    }
+    assertEquals(110, metrics.rows());
+    assertEquals(35, metrics.nulls(1));
+  }
+}
@@ -15,30 +15,47 @@
  */
 package com.github.jcustenborder.vertica.binary;
 
+import com.github.jcustenborder.vertica.Constants;
+import com.github.jcustenborder.vertica.Utf8Slice;
 import com.github.jcustenborder.vertica.VerticaColumnType;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.BaseEncoding;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
@@ -127,10 +144,12 @@ public class EncoderTest {
         of(-1, VerticaColumnType.VARCHAR, "ONE", "030000004F4E45"),
         of(10, VerticaColumnType.CHAR, "one       ", "6F6E6520202020202020"),
         of(-1, VerticaColumnType.VARBINARY, BaseEncoding.base16().decode("FFFFFFFFFFFFEF7F"), "08000000FFFFFFFFFFFFEF7F"),
-//        of(-1, VerticaColumnType.VARBINARY, ByteBuffer.wrap(BaseEncoding.base16().decode("FFFFFFFFFFFFEF7F")), "08000000FFFFFFFFFFFFEF7F"),
+        of(-1, VerticaColumnType.VARBINARY, ByteBuffer.wrap(BaseEncoding.base16().decode("FFFFFFFFFFFFEF7F")), "08000000FFFFFFFFFFFFEF7F"),
+        of(-1, VerticaColumnType.VARBINARY, ByteBuffer.allocateDirect(8).putLong(0, -1L), "08000000FFFFFFFFFFFFFFFF"),
         of(12, VerticaColumnType.BINARY, BaseEncoding.base16().decode("FFFFFFFFFFFFEF7F"), "FFFFFFFFFFFFEF7F00000000"),
         of(8, VerticaColumnType.DATE, new Date(915753600000L), "9AFEFFFFFFFFFFFF"),
         of(8, VerticaColumnType.DATE, new java.sql.Date(915753600000L), "9AFEFFFFFFFFFFFF"),
+        of(8, VerticaColumnType.DATE, new java.sql.Timestamp(915753600000L), "9AFEFFFFFFFFFFFF"),
         of(8, VerticaColumnType.TIMESTAMP, new Date(919739512350L), "3085B34F7EE7FFFF"),
         of(8, VerticaColumnType.TIMESTAMP, new java.sql.Date(919739512350L), "3085B34F7EE7FFFF"),
         of(8, VerticaColumnType.TIMESTAMP, new java.sql.Timestamp(919739512350L), "3085B34F7EE7FFFF"),
@@ -142,6 +161,14 @@ public class EncoderTest {
         of("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF9CFFFFFFFFFFFFFF".length() / 2, VerticaColumnType.NUMERIC, BigDecimal.valueOf(-1.0), "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF9CFFFFFFFFFFFFFF", 38, 2),
         of("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFDD4D56E0D5FFFFFF".length() / 2, VerticaColumnType.NUMERIC, BigDecimal.valueOf(-1809198413.15), "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFDD4D56E0D5FFFFFF", 38, 2),
         of("0600000000000000836AF30D9B9F4EB1".length() / 2, VerticaColumnType.NUMERIC, new BigDecimal("123456789123456789.123"), "0600000000000000836AF30D9B9F4EB1", 21, 3),
+        of("0600000000000000836AF30D9B9F4EB1".length() / 2, VerticaColumnType.NUMERIC, new BigDecimal("123456789123456789.1234"), "0600000000000000836AF30D9B9F4EB1", 21, 3),
+        of("0000000000000000000000000000000064D6120000000000".length() / 2, VerticaColumnType.NUMERIC, 1234532L, "0000000000000000000000000000000064D6120000000000", 38, 0),
+        of("0000000000000000000000000000000064D6120000000000".length() / 2, VerticaColumnType.NUMERIC, 1234532, "0000000000000000000000000000000064D6120000000000", 38, 0),
+        of("0000000000000000000000000000000064D6120000000000".length() / 2, VerticaColumnType.NUMERIC, BigInteger.valueOf(1234532), "0000000000000000000000000000000064D6120000000000", 38, 0),
+        of("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF9CFFFFFFFFFFFFFF".length() / 2, VerticaColumnType.NUMERIC, -1L, "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF9CFFFFFFFFFFFFFF", 38, 2),
+        of("0600000000000000836AF30D9B9F4EB1".length() / 2, VerticaColumnType.NUMERIC, new BigInteger("123456789123456789123"), "0600000000000000836AF30D9B9F4EB1", 21, 0),
+        of(8, VerticaColumnType.NUMERIC, -12345L, "BC29EDFFFFFFFFFF", 18, 2),
+        of(8, VerticaColumnType.NUMERIC, new BigDecimal("-0.001"), "0000000000000000", 18, 2),
         of(8, VerticaColumnType.INTERVAL, (Duration.ofHours(3).plusMinutes(3).plusSeconds(3).toMillis() * 1000L), "C047A38E02000000"),
         of(8, VerticaColumnType.INTERVAL, Duration.ofHours(3).plusMinutes(3).plusSeconds(3), "C047A38E02000000")
 
@@ -160,4 +187,229 @@ public class EncoderTest {
     }));
   }
 
+  @Test
+  public void unsupported() {
+    assertNull(this.encoders.get(VerticaColumnType.INTEGER, "1"), "String should not be supported for INTEGER.");
+    assertNull(this.encoders.get(VerticaColumnType.INTEGER, "2"), "Unresolved result should be cached.");
+  }
+
+  @Test
+  public void copy() {
+    final Encoders copy = this.encoders.copy();
+    assertSame(
+        this.encoders.encodersByType.get(VerticaColumnType.VARCHAR),
+        copy.encodersByType.get(VerticaColumnType.VARCHAR),
+        "Types without stateful encoders should share the lookup table."
+    );
+    assertSame(
+        this.encoders.get(VerticaColumnType.TIMESTAMP, java.util.Date.class),
+        copy.get(VerticaColumnType.TIMESTAMP, java.util.Date.class)
+    );
+    for (Class<?> inputType : Arrays.asList(java.sql.Time.class, java.sql.Date.class, java.util.Date.class)) {
+      final Encoder original = this.encoders.get(VerticaColumnType.TIME, inputType);
+      final Encoder copied = copy.get(VerticaColumnType.TIME, inputType);
+      assertNotSame(original, copied, "TIME encoders keep a calendar and should be copied.");
+      assertSame(original.getClass(), copied.getClass());
+    }
+  }
+
+  @Test
+  public void resolve() {
+    assertEquals(
+        java.util.Date.class,
+        Encoders.resolve(ImmutableSet.of(java.util.Date.class), java.sql.Timestamp.class)
+    );
+    assertEquals(
+        CharSequence.class,
+        Encoders.resolve(ImmutableSet.of(CharSequence.class), StringBuilder.class)
+    );
+    assertEquals(
+        Encoders.Unresolved.class,
+        Encoders.resolve(ImmutableSet.of(Number.class), String.class)
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> numericMatchesLegacy() {
+    final Encoder<BigDecimal> legacy = new LegacyNumericBigDecimalEncoder();
+    final Encoder<BigDecimal> encoder = new NumericBigDecimalEncoder();
+    final Random random = new Random(1234);
+    return Arrays.asList(1, 9, 18, 19, 25, 37, 38).stream().flatMap(precision ->
+        Arrays.asList(0, 2, Math.min(precision, 9)).stream().map(scale -> dynamicTest(
+            String.format("numeric(%s,%s)", precision, scale), () -> {
+              final int size = ((precision / 19) + 1) * 8;
+              for (int i = 0; i < 1000; i++) {
+                final BigInteger unscaled = new BigInteger(precision * 3, random).mod(BigInteger.TEN.pow(precision));
+                final BigDecimal value = new BigDecimal(
+                    random.nextBoolean() ? unscaled : unscaled.negate(),
+                    scale + random.nextInt(3)
+                );
+                final ByteBuffer expected = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                final ByteBuffer actual = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                // The legacy encoder sign extends negative values that truncate to zero incorrectly.
+                if (value.signum() >= 0 || value.setScale(scale, RoundingMode.DOWN).signum() != 0) {
+                  legacy.encode(expected, value, "test", size, precision, scale);
+                }
+                encoder.encode(actual, value, "test", size, precision, scale);
+                assertEquals(
+                    BaseEncoding.base16().encode(expected.array()),
+                    BaseEncoding.base16().encode(actual.array()),
+                    value.toPlainString()
+                );
+              }
+            }))
+    );
+  }
+
+  @Test
+  public void numericOutOfRange() {
+    final ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    assertThrows(IllegalArgumentException.class, () ->
+        this.encoders.get(VerticaColumnType.NUMERIC, Long.class).encode(buffer, 1000L, "test", 8, 5, 2)
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+        this.encoders.get(VerticaColumnType.NUMERIC, BigDecimal.class)
+            .encode(buffer, new BigDecimal("1000.5"), "test", 8, 5, 2)
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+        this.encoders.get(VerticaColumnType.NUMERIC, BigInteger.class)
+            .encode(buffer, BigInteger.TEN.pow(40), "test", 24, 38, 0)
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> utf8() {
+    return Arrays.asList(
+        "",
+        "ascii only",
+        "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e",
+        "\u65e5\u672c\u8a9e\u306e\u30c6\u30ad\u30b9\u30c8",
+        "emoji \ud83d\ude00 and \ud834\udd1e",
+        "unpaired \ud800 high and \udc00 low\ud800",
+        Strings.repeat("chunked ascii ", 50),
+        Strings.repeat("latin-1 \u00e0\u00ff\u00a0 ", 80) + "\u65e5\u672c"
+    ).stream().flatMap(input -> Stream.of(
+        ByteBuffer.allocate(4096),
+        ByteBuffer.allocateDirect(4096)
+    ).map(buffer -> dynamicTest(
+        String.format("%s direct=%s", input.substring(0, Math.min(32, input.length())), buffer.isDirect()), () -> {
+          buffer.order(ByteOrder.LITTLE_ENDIAN);
+          buffer.put((byte) 1);
+          final int length = Utf8Encoding.put(buffer, input);
+          final byte[] expected = input.getBytes(StandardCharsets.UTF_8);
+          assertEquals(expected.length, length);
+          assertEquals(expected.length + 1, buffer.position());
+          buffer.flip();
+          buffer.get();
+          final byte[] actual = new byte[buffer.remaining()];
+          buffer.get(actual);
+          assertEquals(BaseEncoding.base16().encode(expected), BaseEncoding.base16().encode(actual));
+        })));
+  }
+
+  @Test
+  public void utf8Overflow() {
+    assertThrows(BufferOverflowException.class, () -> Utf8Encoding.put(ByteBuffer.allocate(4), "12345"));
+    assertThrows(BufferOverflowException.class, () -> Utf8Encoding.put(ByteBuffer.allocate(4), "\u00e9\u00e9\u00e9"));
+    assertThrows(BufferOverflowException.class, () -> Utf8Encoding.put(ByteBuffer.allocateDirect(4), "\u65e5\u672c"));
+    assertThrows(BufferOverflowException.class, () -> Utf8Encoding.put(ByteBuffer.allocateDirect(4), "\u00e9\u00e9\u00e9"));
+    assertThrows(
+        BufferOverflowException.class, () -> Utf8Encoding.put(ByteBuffer.allocateDirect(300), Strings.repeat("a", 301))
+    );
+  }
+
+  @Test
+  public void charTooLongBeforeEncoding() {
+    final ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    assertThrows(IllegalStateException.class, () ->
+        this.encoders.get(VerticaColumnType.CHAR, String.class).encode(buffer, "123456789", "test", 8, -1, -1)
+    );
+    assertEquals(0, buffer.position(), "nothing should be written for a value that is too long.");
+    assertThrows(IllegalStateException.class, () -> this.encoders.get(VerticaColumnType.CHAR, String.class)
+        .encode(ByteBuffer.allocate(16), "\u00e9\u00e9\u00e9", "test", 4, -1, -1)
+    );
+  }
+
+  @Test
+  public void charPadding() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(16).order(ByteOrder.LITTLE_ENDIAN);
+    this.encoders.get(VerticaColumnType.CHAR, String.class).encode(buffer, "\u00e9a", "test", 8, -1, -1);
+    buffer.flip();
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.get(actual);
+    assertEquals("C3A9610000000000", BaseEncoding.base16().encode(actual));
+  }
+
+  static String encode(Encoder encoder, Object input, int size) {
+    final ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    encoder.encode(buffer, input, "test", size, -1, -1);
+    buffer.flip();
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.get(actual);
+    return BaseEncoding.base16().encode(actual);
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> utf8Bytes() {
+    final String input = "caf\u00e9 \ud83d\ude00";
+    final byte[] utf8 = input.getBytes(StandardCharsets.UTF_8);
+    final byte[] padded = new byte[utf8.length + 6];
+    System.arraycopy(utf8, 0, padded, 3, utf8.length);
+    final ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+    direct.put(utf8).flip();
+
+    return Stream.of(VerticaColumnType.VARCHAR, VerticaColumnType.CHAR).flatMap(type -> Stream.of(
+        Utf8Slice.of(utf8),
+        Utf8Slice.of(padded, 3, utf8.length),
+        utf8,
+        ByteBuffer.wrap(padded, 3, utf8.length).slice(),
+        ByteBuffer.wrap(padded, 3, utf8.length),
+        direct
+    ).map(value -> dynamicTest(String.format("%s %s", type, value.getClass().getSimpleName()), () -> {
+      final String expected = encode(this.encoders.get(type, String.class), input, 16);
+      final Encoder encoder = this.encoders.get(type, value);
+      assertNotNull(encoder, "encoder should not be null.");
+      assertEquals(expected, encode(encoder, value, 16));
+      assertEquals(expected, encode(encoder, value, 16), "Value should not be consumed.");
+    })));
+  }
+
+  @Test
+  public void utf8BytesTooLong() {
+    final byte[] input = "12345".getBytes(StandardCharsets.UTF_8);
+    assertThrows(IllegalStateException.class, () -> encode(this.encoders.get(VerticaColumnType.CHAR, input), input, 4));
+    assertThrows(IllegalStateException.class, () -> encode(
+        this.encoders.get(VerticaColumnType.CHAR, Utf8Slice.class), Utf8Slice.of(input), 4
+    ));
+    assertThrows(IllegalStateException.class, () -> encode(
+        this.encoders.get(VerticaColumnType.CHAR, ByteBuffer.class), ByteBuffer.wrap(input), 4
+    ));
+  }
+
+  @Test
+  public void microsecondPrecision() {
+    final long micros = 919739512350123L;
+    final long storage = micros - Constants.THEIR_EPOCH_MICRO;
+    final ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(
+        Instant.ofEpochSecond(919739512L, 350123456L),
+        ZoneId.of("America/Chicago")
+    );
+    final Timestamp timestamp = new Timestamp(919739512350L);
+    timestamp.setNanos(350123456);
+    final Timestamp beforeEpoch = new Timestamp(-1L);
+    beforeEpoch.setNanos(999999000);
+
+    assertEquals(storage, encodeLong(VerticaColumnType.TIMESTAMPTZ, zonedDateTime));
+    assertEquals(storage, encodeLong(VerticaColumnType.TIMESTAMP, zonedDateTime.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()));
+    assertEquals(storage, encodeLong(VerticaColumnType.TIMESTAMP, timestamp));
+    assertEquals(-1L - Constants.THEIR_EPOCH_MICRO, encodeLong(VerticaColumnType.TIMESTAMP, beforeEpoch));
+    assertEquals(1000001L, encodeLong(VerticaColumnType.INTERVAL, Duration.ofSeconds(1, 1001)));
+    assertEquals(-1L, encodeLong(VerticaColumnType.INTERVAL, Duration.ofNanos(-1000)));
+  }
+
+  long encodeLong(VerticaColumnType type, Object input) {
+    final ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    this.encoders.get(type, input).encode(buffer, input, "test", 8, -1, -1);
+    return buffer.getLong(0);
+  }
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2017 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.vertica.binary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link NumericBigDecimalEncoder} with the previous implementation. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.jcustenborder.vertica.binary.NumericEncoderBenchmark} or from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericEncoderBenchmark {
+  static final int VALUES = 1024;
+
+  @Param({"18", "38"})
+  int precision;
+
+  @Param({"2"})
+  int scale;
+
+  int size;
+  BigDecimal[] decimals;
+  Long[] longs;
+  ByteBuffer buffer;
+  Encoder<BigDecimal> legacy;
+  Encoder<BigDecimal> decimal;
+  Encoder<Long> longEncoder;
+
+  @Setup
+  public void setup() {
+    this.size = ((this.precision / 19) + 1) * 8;
+    this.decimals = new BigDecimal[VALUES];
+    this.longs = new Long[VALUES];
+    final Random random = new Random(1234);
+    for (int i = 0; i < VALUES; i++) {
+      final long value = random.nextInt();
+      this.decimals[i] = BigDecimal.valueOf(value, this.scale);
+      this.longs[i] = value;
+    }
+    this.buffer = ByteBuffer.allocateDirect(this.size * VALUES).order(ByteOrder.LITTLE_ENDIAN);
+    this.legacy = new LegacyNumericBigDecimalEncoder();
+    this.decimal = new NumericBigDecimalEncoder();
+    this.longEncoder = new NumericLongEncoder();
+  }
+
+  @Benchmark
+  public ByteBuffer legacyBigDecimal() {
+    this.buffer.clear();
+    for (BigDecimal value : this.decimals) {
+      this.legacy.encode(this.buffer, value, "value", this.size, this.precision, this.scale);
+    }
+    return this.buffer;
+  }
+
+  @Benchmark
+  public ByteBuffer bigDecimal() {
+    this.buffer.clear();
+    for (BigDecimal value : this.decimals) {
+      this.decimal.encode(this.buffer, value, "value", this.size, this.precision, this.scale);
+    }
+    return this.buffer;
+  }
+
+  @Benchmark
+  public ByteBuffer longValue() {
+    this.buffer.clear();
+    for (Long value : this.longs) {
+      this.longEncoder.encode(this.buffer, value, "value", this.size, this.precision, this.scale);
+    }
+    return this.buffer;
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+        new OptionsBuilder()
+            .include(NumericEncoderBenchmark.class.getSimpleName())
+            .build()
+    ).run();
+  }
+}